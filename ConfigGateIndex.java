@@ -0,0 +1,189 @@
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Gate index keyed by (AIT_NO, DB_TYPE).
+ *
+ * Each partition keeps its configs sorted by numeric config number together with the number of
+ * blocking producer/metadata events they currently hold. A gate check is then "is there any
+ * blocking config above X", answered with a single higherKey lookup instead of a scan of the
+ * whole stats list. Rows are applied one at a time through upsert/remove, so the index never
+ * needs a full rebuild.
+ *
+ * Blocked callers can also park a waiter via {@link #awaitClear}; it is completed by the
+ * upsert/remove that clears the last blocking event above its config number.
+ */
+public class ConfigGateIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ConfigGateIndex.class);
+
+    private static final Metrics.Counter WAITERS_PARKED = Metrics.global()
+            .counter("gate_waiters_parked_total", "Callers parked by awaitClear on a blocked gate");
+    private static final Metrics.Counter WAITERS_RELEASED = Metrics.global()
+            .counter("gate_waiters_released_total", "Parked callers released by the update that cleared their gate");
+
+    private final Map<GateKey, Partition> partitions = new ConcurrentHashMap<>();
+
+    public void load(Collection<ConfigStatusChecker.Stats> statsList) {
+        for (ConfigStatusChecker.Stats stat : statsList) {
+            upsert(stat);
+        }
+        log.info("Gate index loaded. Stats: {}, Partitions: {}", statsList.size(), partitions.size());
+    }
+
+    /** Inserts the row, or replaces the previous state of the same config id. */
+    public void upsert(ConfigStatusChecker.Stats stat) {
+        int configNumber = stat.getConfigNumber();
+        int blockingEvents = Integer.bitCount(stat.getBlockingEventMask() & ConfigStatusChecker.GATE_BLOCKING_MASK);
+        List<CompletableFuture<Void>> released =
+                partitions.computeIfAbsent(new GateKey(stat.getAitNo(), stat.getDbType()), k -> new Partition())
+                        .put(stat.getConfigId(), configNumber, blockingEvents);
+        complete(released, stat);
+    }
+
+    public void remove(ConfigStatusChecker.Stats stat) {
+        Partition partition = partitions.get(new GateKey(stat.getAitNo(), stat.getDbType()));
+        if (partition != null) {
+            complete(partition.remove(stat.getConfigId()), stat);
+        }
+    }
+
+    /**
+     * Completes once no config above currentConfigId holds a blocking event for (aitNo, dbType).
+     * Already-clear gates return a completed future. The future is completed on the thread that
+     * applied the clearing update, so callers should chain with the *Async stages.
+     */
+    public CompletableFuture<Void> awaitClear(String aitNo, String dbType, String currentConfigId) {
+        int currentConfigNumber = ConfigStatusChecker.extractNumeric(currentConfigId);
+        Partition partition = partitions.computeIfAbsent(new GateKey(aitNo, dbType), k -> new Partition());
+        CompletableFuture<Void> waiter = partition.addWaiter(currentConfigNumber);
+        if (!waiter.isDone()) {
+            WAITERS_PARKED.increment();
+            log.info("Config {} parked until AIT_NO: {}, DB_TYPE: {} clears", currentConfigId, aitNo, dbType);
+            // Drop cancelled / timed-out waiters instead of holding them until the gate clears
+            waiter.whenComplete((v, e) -> {
+                if (e != null) {
+                    partition.removeWaiter(currentConfigNumber, waiter);
+                }
+            });
+        }
+        return waiter;
+    }
+
+    public boolean canProcessCurrentConfig(String aitNo, String dbType, String currentConfigId) {
+        Partition partition = partitions.get(new GateKey(aitNo, dbType));
+        if (partition == null) {
+            ConfigStatusChecker.GateMetrics.INDEX.allowed.increment();
+            return true;
+        }
+        int currentConfigNumber = ConfigStatusChecker.extractNumeric(currentConfigId);
+        boolean blocked = partition.hasBlockingAbove(currentConfigNumber);
+        if (blocked) {
+            ConfigStatusChecker.GateMetrics.INDEX.blocked.increment(); // the index keeps counts, not which events
+            log.debug("Config {} blocked by a future config for AIT_NO: {}, DB_TYPE: {}", currentConfigId, aitNo, dbType);
+        } else {
+            ConfigStatusChecker.GateMetrics.INDEX.allowed.increment();
+        }
+        return !blocked;
+    }
+
+    private static void complete(List<CompletableFuture<Void>> released, ConfigStatusChecker.Stats stat) {
+        if (released.isEmpty()) {
+            return;
+        }
+        log.info("Gate cleared by Config ID {} for AIT_NO: {}, DB_TYPE: {}. Releasing {} waiters",
+                stat.getConfigId(), stat.getAitNo(), stat.getDbType(), released.size());
+        WAITERS_RELEASED.add(released.size());
+        for (CompletableFuture<Void> waiter : released) {
+            waiter.complete(null);
+        }
+    }
+
+    /** Running count of blocking producer/metadata events for one (AIT_NO, DB_TYPE). */
+    public int blockingEventCount(String aitNo, String dbType) {
+        Partition partition = partitions.get(new GateKey(aitNo, dbType));
+        return partition == null ? 0 : partition.blockingEvents();
+    }
+
+    record GateKey(String aitNo, String dbType) {}
+
+    private record ConfigEntry(int configNumber, int blockingEvents) {}
+
+    private static final class Partition {
+        private final Map<String, ConfigEntry> configs = new HashMap<>();
+        // config number -> blocking events held by configs with that number (zero entries are dropped)
+        private final TreeMap<Integer, Integer> blockingByConfigNumber = new TreeMap<>();
+        // waiting config number -> parked futures
+        private final TreeMap<Integer, List<CompletableFuture<Void>>> waiters = new TreeMap<>();
+        private int blockingEvents;
+
+        synchronized List<CompletableFuture<Void>> put(String configId, int configNumber, int blocking) {
+            ConfigEntry previous = configs.put(configId, new ConfigEntry(configNumber, blocking));
+            if (previous != null) {
+                adjust(previous.configNumber(), -previous.blockingEvents());
+            }
+            adjust(configNumber, blocking);
+            return releaseWaiters();
+        }
+
+        synchronized List<CompletableFuture<Void>> remove(String configId) {
+            ConfigEntry previous = configs.remove(configId);
+            if (previous != null) {
+                adjust(previous.configNumber(), -previous.blockingEvents());
+            }
+            return releaseWaiters();
+        }
+
+        synchronized CompletableFuture<Void> addWaiter(int configNumber) {
+            if (!hasBlockingAbove(configNumber)) {
+                return CompletableFuture.completedFuture(null);
+            }
+            CompletableFuture<Void> waiter = new CompletableFuture<>();
+            waiters.computeIfAbsent(configNumber, k -> new ArrayList<>()).add(waiter);
+            return waiter;
+        }
+
+        synchronized void removeWaiter(int configNumber, CompletableFuture<Void> waiter) {
+            List<CompletableFuture<Void>> parked = waiters.get(configNumber);
+            if (parked != null && parked.remove(waiter) && parked.isEmpty()) {
+                waiters.remove(configNumber);
+            }
+        }
+
+        // Waiters at or above the highest blocking config number are now clear
+        private List<CompletableFuture<Void>> releaseWaiters() {
+            if (waiters.isEmpty()) {
+                return Collections.emptyList();
+            }
+            SortedMap<Integer, List<CompletableFuture<Void>>> clear = blockingByConfigNumber.isEmpty()
+                    ? waiters
+                    : waiters.tailMap(blockingByConfigNumber.lastKey());
+            if (clear.isEmpty()) {
+                return Collections.emptyList();
+            }
+            List<CompletableFuture<Void>> released = new ArrayList<>();
+            clear.values().forEach(released::addAll);
+            clear.clear();
+            return released;
+        }
+
+        synchronized boolean hasBlockingAbove(int configNumber) {
+            return blockingByConfigNumber.higherKey(configNumber) != null;
+        }
+
+        synchronized int blockingEvents() {
+            return blockingEvents;
+        }
+
+        private void adjust(int configNumber, int delta) {
+            if (delta == 0) {
+                return;
+            }
+            blockingEvents += delta;
+            blockingByConfigNumber.merge(configNumber, delta, (a, b) -> a + b == 0 ? null : a + b);
+        }
+    }
+}
@@ -1,4 +1,5 @@
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -6,86 +7,196 @@ public class ConfigStatusChecker {
 
     private static final Logger log = LoggerFactory.getLogger(ConfigStatusChecker.class);
 
+    private final ConfigGateIndex gateIndex = new ConfigGateIndex();
+
+    // Indexed gate: keep the index in step with individual Stats changes, then check in O(log n)
+    public void loadStats(List<Stats> statsList) {
+        gateIndex.load(statsList);
+    }
+
+    public void onStatsUpdated(Stats stat) {
+        gateIndex.upsert(stat);
+    }
+
+    public void onStatsRemoved(Stats stat) {
+        gateIndex.remove(stat);
+    }
+
+    public boolean canProcessCurrentConfig(String aitNo, String dbType, String currentConfigId) {
+        return gateIndex.canProcessCurrentConfig(aitNo, dbType, currentConfigId);
+    }
+
+    // Async gate: completes as soon as a status update clears the last blocking future config
+    public CompletableFuture<Void> awaitCanProcess(String aitNo, String dbType, String currentConfigId) {
+        return gateIndex.awaitClear(aitNo, dbType, currentConfigId);
+    }
+
+    // Batch gate for a whole scheduler cycle: one grouped pass over the snapshot for all candidates
+    public Map<ConfigGateBatch.GateCandidate, ConfigGateBatch.GateDecision> canProcessConfigs(
+            Collection<ConfigGateBatch.GateCandidate> candidates, List<Stats> statsSnapshot, boolean parallel) {
+        return ConfigGateBatch.evaluate(candidates, statsSnapshot, parallel);
+    }
+
     public boolean canProcessCurrentConfig(List<Stats> statsList, String aitNo, String dbType, String currentConfigId) {
         int currentConfigNumber = extractNumeric(currentConfigId);
-        log.info("===> Starting validation for AIT_NO: {}, DB_TYPE: {}, CONFIG_ID: {} (Parsed: {})",
-                aitNo, dbType, currentConfigId, currentConfigNumber);
 
+        // Hot loop: primitive checks first, string compares only for blocking future configs, no logging
         for (Stats stat : statsList) {
+            if ((stat.getBlockingEventMask() & GATE_BLOCKING_MASK) == 0
+                    || stat.getConfigNumber() <= currentConfigNumber) {
+                continue;
+            }
             if (!aitNo.equals(stat.getAitNo()) || !dbType.equals(stat.getDbType())) {
-                log.debug("Skipping Stat [AIT_NO: {}, DB_TYPE: {}] - Doesn't match filter.",
-                        stat.getAitNo(), stat.getDbType());
                 continue;
             }
 
-            String statConfigId = stat.getConfigId();
-            int statConfigNumber = extractNumeric(statConfigId);
-            log.info("Checking Config ID: {} (Parsed: {})", statConfigId, statConfigNumber);
-
-            if (statConfigNumber <= currentConfigNumber) {
-                log.debug("Ignoring Config ID {} - Not a future config (<= current).", statConfigId);
-                continue;
+            recordBlocked(GateMetrics.SCAN, stat.getBlockingEventMask());
+            if (log.isDebugEnabled()) {
+                log.debug("Config {} blocked by Config ID {}. Events: {}",
+                        currentConfigId, stat.getConfigId(), stat.describeBlockingEvents(GATE_BLOCKING_MASK));
             }
+            return false;
+        }
 
-            Map<String, String> eventMap = stat.getEventMap();
-            for (Map.Entry<String, String> entry : eventMap.entrySet()) {
-                String eventName = entry.getKey();
-                String status = entry.getValue();
+        GateMetrics.SCAN.allowed.increment();
+        return true;
+    }
 
-                if (!isRelevantEvent(eventName)) {
-                    log.debug("Skipping Event: {} - Not 'producer' or 'metadata'", eventName);
-                    continue;
-                }
+    // Gate decision counters per evaluation path, plus block reasons by event; shared by the index and batch gates
+    enum GateMetrics {
+        SCAN("scan"), INDEX("index"), BATCH("batch");
 
-                log.info("   ➤ Event: {} → Status: {}", eventName, status);
+        final Metrics.Counter allowed;
+        final Metrics.Counter blocked;
 
-                if (isBlockingStatus(status)) {
-                    log.warn("❌ Blocking status found in Config ID {} → Event: {}, Status: {}",
-                            statConfigId, eventName, status);
-                    return false;
-                }
+        GateMetrics(String path) {
+            this.allowed = Metrics.global().counter("gate_decisions_total", "Config gate decisions", "path", path, "result", "allowed");
+            this.blocked = Metrics.global().counter("gate_decisions_total", "Config gate decisions", "path", path, "result", "blocked");
+        }
+    }
+
+    private static final Metrics.Counter[] BLOCK_REASONS = Arrays.stream(GateEvent.values())
+            .map(event -> Metrics.global().counter("gate_block_reasons_total",
+                    "Blocked gate decisions by blocking event of the future config", "event", event.name().toLowerCase(Locale.ROOT)))
+            .toArray(Metrics.Counter[]::new);
+
+    static void recordBlocked(GateMetrics path, int blockingEventMask) {
+        path.blocked.increment();
+        int mask = blockingEventMask & GATE_BLOCKING_MASK;
+        for (GateEvent event : GateEvent.values()) {
+            if ((mask & event.bit()) != 0) {
+                BLOCK_REASONS[event.ordinal()].increment();
             }
+        }
+    }
+
+    // Updates one event status and keeps the pre-encoded codes and the gate index in step
+    public void onStatusUpdate(Stats stat, String eventName, String status) {
+        stat.updateEventStatus(eventName, status);
+        gateIndex.upsert(stat);
+    }
 
-            log.info("✔ No blocking status in Config ID {}", statConfigId);
+    // Digits of the config id read as one number ("CFG-1_2" -> 12), without regex or substrings
+    static int extractNumeric(String configId) {
+        long value = 0;
+        for (int i = 0, n = configId.length(); i < n; i++) {
+            char c = configId.charAt(i);
+            if (c >= '0' && c <= '9') {
+                value = value * 10 + (c - '0');
+                if (value > Integer.MAX_VALUE) {
+                    throw new NumberFormatException("Config number out of range: " + configId);
+                }
+            }
         }
+        return (int) value;
+    }
 
-        log.info("✅ No blocking config found. Safe to proceed with {}", currentConfigId);
-        return true;
+    static boolean isBlockingStatus(String status) {
+        return GateStatus.of(status).isBlocking();
     }
 
-    private int extractNumeric(String configId) {
-        String numberPart = configId.replaceAll("[^0-9]", "");
-        int value = numberPart.isEmpty() ? 0 : Integer.parseInt(numberPart);
-        log.debug("Parsed configId \"{}\" → {}", configId, value);
-        return value;
+    static boolean isRelevantEvent(String event) {
+        return (GateEvent.of(event).bit() & GATE_BLOCKING_MASK) != 0;
     }
 
-    private boolean isBlockingStatus(String status) {
-        return "in progress".equalsIgnoreCase(status) ||
-               "partially processed".equalsIgnoreCase(status);
+    // Blocking-event bits; only producer/metadata gate the next config
+    static final int GATE_BLOCKING_MASK = GateEvent.PRODUCER.bit() | GateEvent.METADATA.bit();
+
+    enum GateEvent {
+        PRODUCER, METADATA, OTHER;
+
+        int bit() { return 1 << ordinal(); }
+
+        static GateEvent of(String event) {
+            if ("producer".equalsIgnoreCase(event)) return PRODUCER;
+            if ("metadata".equalsIgnoreCase(event)) return METADATA;
+            return OTHER;
+        }
     }
 
-    private boolean isRelevantEvent(String event) {
-        return "producer".equalsIgnoreCase(event) || "metadata".equalsIgnoreCase(event);
+    enum GateStatus {
+        IN_PROGRESS, PARTIALLY_PROCESSED, OTHER;
+
+        boolean isBlocking() { return this != OTHER; }
+
+        static GateStatus of(String status) {
+            if ("in progress".equalsIgnoreCase(status)) return IN_PROGRESS;
+            if ("partially processed".equalsIgnoreCase(status)) return PARTIALLY_PROCESSED;
+            return OTHER;
+        }
     }
 
     // Inner class for Stats
+    // Config number and blocking-event bits are computed once at ingest (and on updateEventStatus),
+    // so gate checks never parse strings. Event changes must go through updateEventStatus.
     public static class Stats {
         private String aitNo;
         private String configId;
         private String dbType;
         private Map<String, String> eventMap;
+        private final int configNumber;
+        private volatile int blockingEventMask;
 
         public Stats(String aitNo, String configId, String dbType, Map<String, String> eventMap) {
             this.aitNo = aitNo;
             this.configId = configId;
             this.dbType = dbType;
             this.eventMap = eventMap;
+            this.configNumber = extractNumeric(configId);
+            this.blockingEventMask = encodeBlockingEvents(eventMap);
         }
 
         public String getAitNo() { return aitNo; }
         public String getConfigId() { return configId; }
         public String getDbType() { return dbType; }
         public Map<String, String> getEventMap() { return eventMap; }
+        public int getConfigNumber() { return configNumber; }
+        public int getBlockingEventMask() { return blockingEventMask; }
+
+        public synchronized void updateEventStatus(String eventName, String status) {
+            eventMap.put(eventName, status);
+            blockingEventMask = encodeBlockingEvents(eventMap);
+        }
+
+        // Cold path only (logging / block reasons)
+        public String describeBlockingEvents(int mask) {
+            StringJoiner joiner = new StringJoiner(", ");
+            for (Map.Entry<String, String> entry : eventMap.entrySet()) {
+                if ((GateEvent.of(entry.getKey()).bit() & mask) != 0 && isBlockingStatus(entry.getValue())) {
+                    joiner.add(entry.getKey() + "=" + entry.getValue());
+                }
+            }
+            return joiner.toString();
+        }
+
+        private static int encodeBlockingEvents(Map<String, String> eventMap) {
+            int mask = 0;
+            for (Map.Entry<String, String> entry : eventMap.entrySet()) {
+                if (GateStatus.of(entry.getValue()).isBlocking()) {
+                    mask |= GateEvent.of(entry.getKey()).bit();
+                }
+            }
+            return mask;
+        }
     }
 }
\ No newline at end of file
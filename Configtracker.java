@@ -1,5 +1,4 @@
 import java.util.*;
-import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -9,57 +8,44 @@ public class ConfigStatusChecker {
 
     public boolean canProcessCurrentConfig(List<Stats> statsList, String aitNo, String dbType, String currentConfigId) {
         int currentConfigNumber = extractNumeric(currentConfigId);
-        log.info("===> Starting validation for AIT_NO: {}, DB_TYPE: {}, CONFIG_ID: {} (Parsed: {})",
-                aitNo, dbType, currentConfigId, currentConfigNumber);
+        log.debug("===> Starting validation for AIT_NO: {}, DB_TYPE: {}, CONFIG_ID: {}", aitNo, dbType, currentConfigId);
 
         for (Stats stat : statsList) {
-            // Step 1: Filter by AIT and DB type
-            if (!aitNo.equals(stat.getAitNo()) || !dbType.equals(stat.getDbType())) {
-                log.debug("Skipping Stat [AIT_NO: {}, DB_TYPE: {}] - Doesn't match filter.",
-                        stat.getAitNo(), stat.getDbType());
+            // Step 1: Only future configs holding a blocking event (pre-encoded, no string work)
+            if (stat.getBlockingEventCount() == 0 || stat.getConfigNumber() <= currentConfigNumber) {
                 continue;
             }
 
-            // Step 2: Extract config number for comparison
-            String statConfigId = stat.getConfigId();
-            int statConfigNumber = extractNumeric(statConfigId);
-            log.info("Checking Config ID: {} (Parsed: {})", statConfigId, statConfigNumber);
-
-            // Step 3: Check only future config IDs
-            if (statConfigNumber <= currentConfigNumber) {
-                log.debug("Ignoring Config ID {} - Not a future config (<= current).", statConfigId);
+            // Step 2: Filter by AIT and DB type
+            if (!aitNo.equals(stat.getAitNo()) || !dbType.equals(stat.getDbType())) {
                 continue;
             }
 
-            // Step 4: Check event statuses
-            Map<String, String> eventMap = stat.getEventMap();
-            for (Map.Entry<String, String> entry : eventMap.entrySet()) {
-                String eventName = entry.getKey();
-                String status = entry.getValue();
-                log.info("   ➤ Event: {} → Status: {}", eventName, status);
-
-                if (isBlockingStatus(status)) {
-                    log.warn("❌ Blocking status found in Config ID {} → Event: {}, Status: {}",
-                            statConfigId, eventName, status);
-                    return false;
-                }
-            }
-
-            log.info("✔ No blocking status in Config ID {}", statConfigId);
+            log.warn("❌ Blocking status found in Config ID {} → Events: {}",
+                    stat.getConfigId(), stat.describeBlockingEvents());
+            return false;
         }
 
-        log.info("✅ No blocking config found. Safe to proceed with {}", currentConfigId);
+        log.debug("✅ No blocking config found. Safe to proceed with {}", currentConfigId);
         return true;
     }
 
-    private int extractNumeric(String configId) {
-        String numberPart = configId.replaceAll("[^0-9]", "");
-        int value = numberPart.isEmpty() ? 0 : Integer.parseInt(numberPart);
-        log.debug("Parsed configId \"{}\" → {}", configId, value);
-        return value;
+    // Digits of the config id read as one number, without regex or substrings
+    static int extractNumeric(String configId) {
+        long value = 0;
+        for (int i = 0, n = configId.length(); i < n; i++) {
+            char c = configId.charAt(i);
+            if (c >= '0' && c <= '9') {
+                value = value * 10 + (c - '0');
+                if (value > Integer.MAX_VALUE) {
+                    throw new NumberFormatException("Config number out of range: " + configId);
+                }
+            }
+        }
+        return (int) value;
     }
 
-    private boolean isBlockingStatus(String status) {
+    static boolean isBlockingStatus(String status) {
         return "in progress".equalsIgnoreCase(status) ||
                "partially processed".equalsIgnoreCase(status);
     }
@@ -70,6 +56,9 @@ public class ConfigStatusChecker {
         private String configId;
         private String dbType;
         private Map<String, String> eventMap;
+        // Encoded once at ingest: numeric config id and number of blocking events
+        private final int configNumber;
+        private volatile int blockingEventCount;
 
         // Constructor
         public Stats(String aitNo, String configId, String dbType, Map<String, String> eventMap) {
@@ -77,11 +66,40 @@ public class ConfigStatusChecker {
             this.configId = configId;
             this.dbType = dbType;
             this.eventMap = eventMap;
+            this.configNumber = extractNumeric(configId);
+            this.blockingEventCount = countBlockingEvents(eventMap);
         }
 
         public String getAitNo() { return aitNo; }
         public String getConfigId() { return configId; }
         public String getDbType() { return dbType; }
         public Map<String, String> getEventMap() { return eventMap; }
+        public int getConfigNumber() { return configNumber; }
+        public int getBlockingEventCount() { return blockingEventCount; }
+
+        public synchronized void updateEventStatus(String eventName, String status) {
+            eventMap.put(eventName, status);
+            blockingEventCount = countBlockingEvents(eventMap);
+        }
+
+        public String describeBlockingEvents() {
+            StringJoiner joiner = new StringJoiner(", ");
+            for (Map.Entry<String, String> entry : eventMap.entrySet()) {
+                if (isBlockingStatus(entry.getValue())) {
+                    joiner.add(entry.getKey() + "=" + entry.getValue());
+                }
+            }
+            return joiner.toString();
+        }
+
+        private static int countBlockingEvents(Map<String, String> eventMap) {
+            int count = 0;
+            for (String status : eventMap.values()) {
+                if (isBlockingStatus(status)) {
+                    count++;
+                }
+            }
+            return count;
+        }
     }
-}
+}
\ No newline at end of file
@@ -0,0 +1,199 @@
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Paged TC_Execution data for the execution dashboard, plus its SSE push channel.
+ *
+ * Pages use keyset pagination: the client passes back the opaque cursor of the last row it has and
+ * the next page starts strictly after it, so page N costs the same as page 1 however long the history
+ * grows. Sort columns are whitelisted and always tie-broken by TC_EXECUTION_ID to keep the order total.
+ * STATUS, TC_ID and START_TIME may be NULL; the cursor records a NULL sort value and the predicate follows
+ * SQL Server's ordering, where NULLs sort first ascending and last descending.
+ * Backing indexes (one per sortable column, matching the ORDER BY):
+ * <pre>
+ * CREATE INDEX IX_TC_EXECUTION_START  ON TC_EXECUTION (START_TIME DESC, TC_EXECUTION_ID DESC) INCLUDE (TC_ID, STEP_ID, STATUS, END_TIME);
+ * CREATE INDEX IX_TC_EXECUTION_STATUS ON TC_EXECUTION (STATUS, TC_EXECUTION_ID DESC) INCLUDE (TC_ID, STEP_ID, START_TIME, END_TIME);
+ * CREATE INDEX IX_TC_EXECUTION_TC     ON TC_EXECUTION (TC_ID, TC_EXECUTION_ID DESC) INCLUDE (STEP_ID, STATUS, START_TIME, END_TIME);
+ * </pre>
+ */
+@RestController
+@RequestMapping("/api/executions")
+public class ExecutionController {
+
+    private static final int MAX_PAGE_SIZE = 500;
+
+    // sort key -> column and how its cursor value round-trips
+    private enum SortColumn {
+        id("TC_EXECUTION_ID"), startTime("START_TIME"), status("STATUS"), tcId("TC_ID");
+
+        final String column;
+
+        SortColumn(String column) {
+            this.column = column;
+        }
+
+        Object cursorValue(ExecutionRow row) {
+            return switch (this) {
+                case id -> row.id();
+                case startTime -> row.startTime();
+                case status -> row.status();
+                case tcId -> row.tcId();
+            };
+        }
+
+        String encode(Object value) {
+            return value instanceof Timestamp ts ? String.valueOf(ts.getTime()) : String.valueOf(value);
+        }
+
+        Object decode(String text) {
+            return switch (this) {
+                case id -> Long.parseLong(text);
+                case startTime -> new Timestamp(Long.parseLong(text));
+                default -> text;
+            };
+        }
+    }
+
+    public record ExecutionRow(long id, String tcId, String stepId, String status, String comments,
+                               Timestamp startTime, Timestamp endTime, Long durationMillis) {}
+
+    public record ExecutionPage(List<ExecutionRow> rows, String nextCursor) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ExecutionEventHub eventHub;
+
+    public ExecutionController(JdbcTemplate jdbcTemplate, ExecutionEventHub eventHub) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventHub = eventHub;
+    }
+
+    @GetMapping
+    public ExecutionPage page(@RequestParam(defaultValue = "startTime") String sort,
+                              @RequestParam(defaultValue = "desc") String dir,
+                              @RequestParam(defaultValue = "50") int size,
+                              @RequestParam(required = false) String status,
+                              @RequestParam(required = false) String tcId,
+                              @RequestParam(required = false) String after) {
+        SortColumn sortColumn;
+        try {
+            sortColumn = SortColumn.valueOf(sort);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Unknown sort " + sort + ", expected one of " + Arrays.toString(SortColumn.values()), e);
+        }
+        if (!"asc".equalsIgnoreCase(dir) && !"desc".equalsIgnoreCase(dir)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown dir " + dir + ", expected asc or desc");
+        }
+        boolean desc = "desc".equalsIgnoreCase(dir);
+        int pageSize = Math.max(1, Math.min(MAX_PAGE_SIZE, size));
+
+        StringBuilder sql = new StringBuilder(
+                "SELECT TC_EXECUTION_ID, TC_ID, STEP_ID, STATUS, COMMENTS, START_TIME, END_TIME FROM TC_EXECUTION WHERE 1 = 1");
+        List<Object> args = new ArrayList<>();
+        if (status != null && !status.isBlank()) {
+            sql.append(" AND STATUS = ?");
+            args.add(status);
+        }
+        if (tcId != null && !tcId.isBlank()) {
+            sql.append(" AND TC_ID LIKE ?");
+            args.add(tcId.replace("[", "[[]").replace("%", "[%]").replace("_", "[_]") + "%");
+        }
+        if (after != null && !after.isBlank()) {
+            Object value;
+            long afterId;
+            try {
+                // "<id>|" for a NULL sort value, "<id>|=<value>" otherwise
+                String[] cursor = new String(Base64.getUrlDecoder().decode(after), StandardCharsets.UTF_8).split("\\|", 2);
+                afterId = Long.parseLong(cursor[0]);
+                if (cursor[1].isEmpty()) {
+                    value = null;
+                } else if (cursor[1].startsWith("=")) {
+                    value = sortColumn.decode(cursor[1].substring(1));
+                } else {
+                    throw new IllegalArgumentException("No sort value in cursor");
+                }
+            } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+                // Cursors are opaque; one that does not decode was not issued for this sort
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Malformed cursor " + after, e);
+            }
+            String cmp = desc ? "<" : ">";
+            if (sortColumn == SortColumn.id) {
+                sql.append(" AND TC_EXECUTION_ID ").append(cmp).append(" ?");
+                args.add(afterId);
+            } else if (value == null) {
+                // After a NULL: the rest of the NULLs, then (ascending only) every non-NULL value
+                sql.append(" AND (").append(sortColumn.column).append(" IS NULL AND TC_EXECUTION_ID ").append(cmp).append(" ?");
+                if (!desc) {
+                    sql.append(" OR ").append(sortColumn.column).append(" IS NOT NULL");
+                }
+                sql.append(')');
+                args.add(afterId);
+            } else {
+                // (sortColumn, id) strictly after the cursor, written out for SQL Server; descending, the NULLs still follow
+                sql.append(" AND (").append(sortColumn.column).append(' ').append(cmp).append(" ? OR (")
+                   .append(sortColumn.column).append(" = ? AND TC_EXECUTION_ID ").append(cmp).append(" ?)");
+                if (desc) {
+                    sql.append(" OR ").append(sortColumn.column).append(" IS NULL");
+                }
+                sql.append(')');
+                args.add(value);
+                args.add(value);
+                args.add(afterId);
+            }
+        }
+        String direction = desc ? " DESC" : " ASC";
+        sql.append(" ORDER BY ");
+        if (sortColumn != SortColumn.id) {
+            sql.append(sortColumn.column).append(direction).append(", ");
+        }
+        sql.append("TC_EXECUTION_ID").append(direction);
+        sql.append(" OFFSET 0 ROWS FETCH NEXT ? ROWS ONLY");
+        args.add(pageSize + 1); // one extra row tells us whether there is a next page
+
+        List<ExecutionRow> rows = jdbcTemplate.query(sql.toString(), (rs, n) -> toRow(rs), args.toArray());
+        String next = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            ExecutionRow last = rows.get(pageSize - 1);
+            Object value = sortColumn.cursorValue(last);
+            String cursor = last.id() + "|" + (value == null ? "" : "=" + sortColumn.encode(value));
+            next = Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+        }
+        return new ExecutionPage(rows, next);
+    }
+
+    /** New and changed execution statuses, pushed as they are committed. */
+    @GetMapping("/stream")
+    public SseEmitter stream() {
+        return eventHub.subscribe();
+    }
+
+    /** Distinct statuses for the filter drop-down. */
+    @GetMapping("/statuses")
+    public List<String> statuses() {
+        return jdbcTemplate.queryForList("SELECT DISTINCT STATUS FROM TC_EXECUTION", String.class);
+    }
+
+    private static ExecutionRow toRow(ResultSet rs) throws SQLException {
+        Timestamp start = rs.getTimestamp("START_TIME");
+        Timestamp end = rs.getTimestamp("END_TIME");
+        return new ExecutionRow(rs.getLong("TC_EXECUTION_ID"), rs.getString("TC_ID"), rs.getString("STEP_ID"),
+                rs.getString("STATUS"), rs.getString("COMMENTS"), start, end,
+                start == null || end == null ? null : end.getTime() - start.getTime());
+    }
+}
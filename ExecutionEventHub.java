@@ -0,0 +1,99 @@
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SSE fan-out of committed TC_Execution transitions to open dashboards.
+ *
+ * ExecutionLogWriter hands every committed batch to {@link #publish}; the batch is sent as one
+ * "executions" event on a dedicated thread, so a slow browser never stalls log flushing. Dead
+ * emitters are dropped on the first failed send; a periodic comment keeps proxies from closing
+ * idle streams. Browsers reconnect on their own (EventSource) and re-read the first page.
+ */
+@Component
+public class ExecutionEventHub {
+
+    private static final Logger log = LoggerFactory.getLogger(ExecutionEventHub.class);
+    private static final long EMITTER_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(30);
+
+    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+    private final ExecutorService sender = Executors.newSingleThreadExecutor(r -> daemon(r, "execution-sse"));
+    private final ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(r -> daemon(r, "execution-sse-heartbeat"));
+
+    public ExecutionEventHub() {
+        heartbeat.scheduleAtFixedRate(() -> sender.execute(this::sendHeartbeat), 15, 15, TimeUnit.SECONDS);
+    }
+
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MILLIS);
+        emitter.onCompletion(() -> emitters.remove(emitter));
+        emitter.onTimeout(() -> emitters.remove(emitter));
+        emitter.onError(e -> emitters.remove(emitter));
+        emitters.add(emitter);
+        log.debug("Dashboard subscribed. Open streams: {}", emitters.size());
+        return emitter;
+    }
+
+    public void publish(List<ExecutionLogWriter.Transition> batch) {
+        if (emitters.isEmpty() || batch.isEmpty()) {
+            return;
+        }
+        List<Map<String, Object>> payload = batch.stream().map(ExecutionEventHub::toEvent).toList();
+        sender.execute(() -> send(SseEmitter.event().name("executions").data(payload, MediaType.APPLICATION_JSON)));
+    }
+
+    private static Map<String, Object> toEvent(ExecutionLogWriter.Transition t) {
+        // Only what the dashboard needs to insert or update a row; tcId/stepId are null on updates
+        Map<String, Object> event = new HashMap<>();
+        event.put("id", t.executionId());
+        event.put("insert", t.insert());
+        event.put("tcId", t.tcId());
+        event.put("stepId", t.stepId());
+        event.put("status", t.status());
+        event.put("comments", t.comments());
+        event.put("at", t.at().getTime());
+        return event;
+    }
+
+    private void sendHeartbeat() {
+        send(SseEmitter.event().comment("keep-alive"));
+    }
+
+    private void send(SseEmitter.SseEventBuilder event) {
+        for (SseEmitter emitter : emitters) {
+            try {
+                emitter.send(event);
+            } catch (IOException | IllegalStateException e) {
+                emitters.remove(emitter);
+                emitter.completeWithError(e);
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        heartbeat.shutdownNow();
+        sender.shutdown();
+        emitters.forEach(SseEmitter::complete);
+        emitters.clear();
+    }
+
+    private static Thread daemon(Runnable r, String name) {
+        Thread t = new Thread(r, name);
+        t.setDaemon(true);
+        return t;
+    }
+}
@@ -0,0 +1,320 @@
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Write-behind TC_Execution log.
+ *
+ * begin/update only enqueue a state transition and return; a single flusher thread writes them in
+ * JDBC batches when batchSize transitions are pending or flushInterval has passed, one transaction
+ * per flush. An insert and its update in the same flush collapse into one INSERT with the final
+ * status. Execution ids come from a locally held sequence block, so begin() needs no round trip.
+ * The sequence is then the only id allocator for TC_EXECUTION: every row must be started through
+ * begin(), and the sequence must start above the highest TC_EXECUTION_ID already in the table.
+ *
+ * The queue is bounded: when the database falls behind, callers block instead of losing rows.
+ * A flush that fails on the connection is retried with the same rows until it goes through. One that
+ * keeps failing otherwise (flushAttempts times) is split in halves until the transitions the database
+ * rejects are isolated; only those are dropped and logged. close() drains and commits everything
+ * still queued, giving up on a batch after closeAttempts or when the closing thread is interrupted.
+ * Listeners see every committed batch, which is what feeds the dashboard push channel.
+ */
+public class ExecutionLogWriter implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ExecutionLogWriter.class);
+
+    static final String INSERT_SQL =
+            "INSERT INTO TC_EXECUTION (TC_EXECUTION_ID, TC_ID, STEP_ID, STATUS, COMMENTS, START_TIME, END_TIME) VALUES (?,?,?,?,?,?,?)";
+    static final String UPDATE_SQL =
+            "UPDATE TC_EXECUTION SET STATUS = ?, COMMENTS = ?, END_TIME = ? WHERE TC_EXECUTION_ID = ?";
+
+    public record Options(int capacity, int batchSize, long flushIntervalMillis, int idBlockSize,
+                          int flushAttempts, int closeAttempts) {
+        public static Options defaults() {
+            return new Options(10_000, 500, 200, 1_000, 5, 3);
+        }
+    }
+
+    /** Reserves size consecutive ids and returns the first one. */
+    @FunctionalInterface
+    public interface IdBlockSource {
+        long reserve(int size) throws SQLException;
+    }
+
+    /** One state transition; tcId/stepId are only set on the inserting one. */
+    public record Transition(long executionId, boolean insert, Object tcId, Object stepId,
+                             String status, String comments, Timestamp at) {}
+
+    private final DataSource dataSource;
+    private final IdBlockSource idSource;
+    private final Options options;
+    private final BlockingQueue<Transition> queue;
+    private final Thread flusher;
+    private final List<Consumer<List<Transition>>> listeners = new CopyOnWriteArrayList<>();
+    private volatile boolean closed;
+    private volatile boolean interrupted; // close() stopped waiting: one attempt per batch from here on
+
+    private long nextId;
+    private long idLimit; // exclusive
+
+    public ExecutionLogWriter(DataSource dataSource, IdBlockSource idSource, Options options) {
+        this.dataSource = dataSource;
+        this.idSource = idSource;
+        this.options = options;
+        this.queue = new ArrayBlockingQueue<>(options.capacity());
+        this.flusher = new Thread(this::runFlusher, "tc-execution-log");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /** SQL Server sequence; the whole block is one sp_sequence_get_range call. */
+    public static IdBlockSource sqlServerSequence(DataSource dataSource, String sequenceName) {
+        return size -> {
+            try (Connection c = dataSource.getConnection();
+                 CallableStatement cs = c.prepareCall("{call sys.sp_sequence_get_range(?, ?, ?)}")) {
+                cs.setString(1, sequenceName);
+                cs.setLong(2, size);
+                cs.registerOutParameter(3, Types.BIGINT);
+                cs.execute();
+                return cs.getLong(3);
+            }
+        };
+    }
+
+    /** Records the In Progress row and returns its execution id without touching the database. */
+    public long begin(Object tcId, Object stepId, String status) {
+        long id = nextId();
+        enqueue(new Transition(id, true, tcId, stepId, status, null, now()));
+        return id;
+    }
+
+    public void update(long executionId, String status, String comments) {
+        enqueue(new Transition(executionId, false, null, null, status, comments, now()));
+    }
+
+    /** Called on the flusher thread after each committed flush; keep it short or hand off. */
+    public void addListener(Consumer<List<Transition>> listener) {
+        listeners.add(listener);
+    }
+
+    public int pending() {
+        return queue.size();
+    }
+
+    private synchronized long nextId() {
+        if (nextId >= idLimit) {
+            try {
+                nextId = idSource.reserve(options.idBlockSize());
+            } catch (SQLException e) {
+                throw new IllegalStateException("Could not reserve TC_EXECUTION ids", e);
+            }
+            idLimit = nextId + options.idBlockSize();
+        }
+        return nextId++;
+    }
+
+    private void enqueue(Transition t) {
+        if (closed) {
+            throw new IllegalStateException("Execution log writer is closed");
+        }
+        try {
+            queue.put(t);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing execution log " + t.executionId(), e);
+        }
+    }
+
+    private static Timestamp now() {
+        return new Timestamp(System.currentTimeMillis());
+    }
+
+    // === flusher ===
+    private void runFlusher() {
+        List<Transition> batch = new ArrayList<>(options.batchSize());
+        while (!(closed && queue.isEmpty())) {
+            try {
+                Transition first = queue.poll(options.flushIntervalMillis(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(options.flushIntervalMillis());
+                while (batch.size() < options.batchSize()) {
+                    queue.drainTo(batch, options.batchSize() - batch.size());
+                    long wait = deadline - System.nanoTime();
+                    if (batch.size() >= options.batchSize() || wait <= 0 || closed) {
+                        break;
+                    }
+                    Transition next = queue.poll(wait, TimeUnit.NANOSECONDS);
+                    if (next != null) {
+                        batch.add(next);
+                    }
+                }
+            } catch (InterruptedException e) {
+                // close() no longer waits; fall through and write what we have
+                interrupted = true;
+            }
+            if (!batch.isEmpty()) {
+                flushWithRetry(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void flushWithRetry(List<Transition> batch) {
+        for (int attempt = 1; ; attempt++) {
+            SQLException failure;
+            try {
+                flush(batch);
+                notifyListeners(batch);
+                return;
+            } catch (SQLException e) {
+                failure = e;
+            }
+            if (closed && attempt >= options.closeAttempts() || interrupted) {
+                deadLetter(batch, "after " + attempt + " attempts at shutdown", failure);
+                return;
+            }
+            if (!isConnectionFailure(failure) && attempt >= options.flushAttempts()) {
+                log.warn("TC_Execution flush of {} transitions failed {} times, splitting it to find the rejected rows",
+                        batch.size(), attempt, failure);
+                flushSplitting(batch);
+                return;
+            }
+            log.warn("TC_Execution flush of {} transitions failed (attempt {}), retrying", batch.size(), attempt, failure);
+            try {
+                Thread.sleep(Math.min(5_000, 100L * attempt));
+            } catch (InterruptedException e) {
+                interrupted = true;
+                deadLetter(batch, "interrupted while retrying", failure);
+                return;
+            }
+        }
+    }
+
+    // Halves keep their order, so an insert is always written before a later update of the same row
+    private void flushSplitting(List<Transition> batch) {
+        try {
+            flush(batch);
+            notifyListeners(batch);
+            return;
+        } catch (SQLException e) {
+            if (batch.size() == 1) {
+                deadLetter(batch, "rejected by the database", e);
+                return;
+            }
+            if (isConnectionFailure(e)) {
+                flushWithRetry(batch); // the connection went, not these rows; back to waiting it out
+                return;
+            }
+        }
+        int half = batch.size() / 2;
+        flushSplitting(batch.subList(0, half));
+        flushSplitting(batch.subList(half, batch.size()));
+    }
+
+    // SQLState class 08 is "connection exception"; anything else is taken to be about the rows
+    private static boolean isConnectionFailure(SQLException e) {
+        return e instanceof SQLTransientConnectionException || e instanceof SQLNonTransientConnectionException
+                || e instanceof SQLRecoverableException || e.getSQLState() != null && e.getSQLState().startsWith("08");
+    }
+
+    private void deadLetter(List<Transition> transitions, String reason, SQLException cause) {
+        log.error("Dropping {} TC_Execution transitions {}: {}", transitions.size(), reason, transitions, cause);
+    }
+
+    private void notifyListeners(List<Transition> batch) {
+        List<Transition> committed = List.copyOf(batch);
+        for (Consumer<List<Transition>> listener : listeners) {
+            try {
+                listener.accept(committed);
+            } catch (RuntimeException e) {
+                log.warn("TC_Execution listener failed", e);
+            }
+        }
+    }
+
+    // An insert plus the update that ends it, when both land in the same flush
+    private static final class PendingRow {
+        final Transition begin;
+        Transition end;
+
+        PendingRow(Transition begin) {
+            this.begin = begin;
+        }
+    }
+
+    void flush(List<Transition> batch) throws SQLException {
+        Map<Long, PendingRow> inserts = new LinkedHashMap<>();
+        Map<Long, Transition> updates = new LinkedHashMap<>();
+        for (Transition t : batch) {
+            PendingRow row = inserts.get(t.executionId());
+            if (t.insert()) {
+                inserts.put(t.executionId(), new PendingRow(t));
+            } else if (row != null) {
+                row.end = t; // folds into the INSERT
+            } else {
+                updates.put(t.executionId(), t); // last update per id wins
+            }
+        }
+
+        try (Connection c = dataSource.getConnection()) {
+            c.setAutoCommit(false);
+            try {
+                if (!inserts.isEmpty()) {
+                    try (PreparedStatement ps = c.prepareStatement(INSERT_SQL)) {
+                        for (PendingRow row : inserts.values()) {
+                            Transition latest = row.end == null ? row.begin : row.end;
+                            ps.setLong(1, row.begin.executionId());
+                            ps.setObject(2, row.begin.tcId());
+                            ps.setObject(3, row.begin.stepId());
+                            ps.setString(4, latest.status());
+                            ps.setString(5, latest.comments());
+                            ps.setTimestamp(6, row.begin.at());
+                            ps.setTimestamp(7, row.end == null ? null : row.end.at());
+                            ps.addBatch();
+                        }
+                        ps.executeBatch();
+                    }
+                }
+                if (!updates.isEmpty()) {
+                    try (PreparedStatement ps = c.prepareStatement(UPDATE_SQL)) {
+                        for (Transition t : updates.values()) {
+                            ps.setString(1, t.status());
+                            ps.setString(2, t.comments());
+                            ps.setTimestamp(3, t.at());
+                            ps.setLong(4, t.executionId());
+                            ps.addBatch();
+                        }
+                        ps.executeBatch();
+                    }
+                }
+                c.commit();
+            } catch (SQLException e) {
+                c.rollback();
+                throw e;
+            }
+        }
+    }
+
+    /** Stops accepting transitions and blocks until everything queued has been written. */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            flusher.interrupt();
+        }
+    }
+}
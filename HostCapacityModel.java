@@ -0,0 +1,332 @@
+import java.util.*;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * In-memory capacity model for the load balancer.
+ *
+ * A job sent to a host reserves its expected RAM/CPU against that host straight away, so a whole
+ * batch can be placed in one pass without re-reading host stats or sleeping until the host shows
+ * the load. Reservations are reconciled on refresh: a reading taken settleMillis after a
+ * reservation already reflects that job, so the reservation is dropped and the reading takes over.
+ *
+ * Eligible hosts are kept in a tree ordered by RAM headroom, and a {@link HostPlacementPolicy}
+ * picks from it, so placing a job costs O(log hosts).
+ *
+ * Every headroom gain (fresh reading, heartbeat, released reservation) bumps a capacity version,
+ * so the assignment loop can wait on {@link #awaitCapacityChange} instead of a fixed sleep.
+ *
+ * Reservation outcomes and reserve() call time go to {@link Metrics#global()}; per-host reserved
+ * RAM and reservation counts are exposed as snapshots for gauges.
+ */
+public class HostCapacityModel {
+
+    private static final Logger log = LoggerFactory.getLogger(HostCapacityModel.class);
+
+    private static final Metrics.Histogram RESERVE_TIME = Metrics.global()
+            .histogram("scheduler_reserve_seconds", "Time to pick a host and reserve a job's expected cost");
+    private static final Metrics.Counter PLACED = Metrics.global()
+            .counter("scheduler_reservations_total", "Reservation attempts by outcome", "outcome", "placed");
+    private static final Metrics.Counter NO_HEADROOM = Metrics.global()
+            .counter("scheduler_reservations_total", "Reservation attempts by outcome", "outcome", "no_headroom");
+    private static final Metrics.Counter RELEASED = Metrics.global()
+            .counter("scheduler_reservations_closed_total", "Reservations dropped, by reason", "reason", "released");
+    private static final Metrics.Counter SETTLED = Metrics.global()
+            .counter("scheduler_reservations_closed_total", "Reservations dropped, by reason", "reason", "settled");
+
+    // ramThresholdMb: RAM the host must keep free while running this tool (per-tool threshold)
+    public record JobCost(long ramMb, double cpuPercent, long ramThresholdMb) {}
+
+    private final Function<Stats, JobCost> jobCost;
+    private final ToLongFunction<HostStat> freeRamMb;
+    private final ToDoubleFunction<HostStat> freeCpuPercent;
+    private final long settleMillis;
+    private final LongSupplier clock;
+    private final HostPlacementPolicy placementPolicy;
+
+    // Hosts that drop out of readHostStat stay here as ineligible so their reservations survive
+    private final Map<String, HostCapacity> hosts = new HashMap<>();
+    // Eligible hosts only, ascending RAM headroom; entries are removed before any headroom change
+    private final NavigableSet<HostCapacity> eligibleByHeadroom = new TreeSet<>(HostCapacity.BY_HEADROOM);
+    private ScheduledFuture<?> refreshTask;
+    private long capacityVersion;
+
+    public HostCapacityModel(Function<Stats, JobCost> jobCost, ToLongFunction<HostStat> freeRamMb,
+                             ToDoubleFunction<HostStat> freeCpuPercent, long settleMillis,
+                             HostPlacementPolicy placementPolicy) {
+        this(jobCost, freeRamMb, freeCpuPercent, settleMillis, placementPolicy, System::currentTimeMillis);
+    }
+
+    public HostCapacityModel(Function<Stats, JobCost> jobCost, ToLongFunction<HostStat> freeRamMb,
+                             ToDoubleFunction<HostStat> freeCpuPercent, long settleMillis,
+                             HostPlacementPolicy placementPolicy, LongSupplier clock) {
+        this.jobCost = jobCost;
+        this.freeRamMb = freeRamMb;
+        this.freeCpuPercent = freeCpuPercent;
+        this.settleMillis = settleMillis;
+        this.placementPolicy = placementPolicy;
+        this.clock = clock;
+    }
+
+    /** Applies a fresh readHostStat result. Only hosts in the reading are eligible for placement. */
+    public synchronized void refresh(List<HostStat> readings) {
+        long settledBefore = clock.getAsLong() - settleMillis;
+        boolean gained = false;
+        Set<HostCapacity> wasEligible = new HashSet<>(eligibleByHeadroom);
+        eligibleByHeadroom.clear();
+        hosts.values().forEach(capacity -> capacity.eligible = false);
+        for (HostStat hostStat : readings) {
+            HostCapacity capacity = hosts.computeIfAbsent(hostStat.getHost(), HostCapacity::new);
+            long before = capacity.headroomRamMb();
+            capacity.reconcile(hostStat, freeRamMb.applyAsLong(hostStat), freeCpuPercent.applyAsDouble(hostStat),
+                    settledBefore, placementPolicy);
+            eligibleByHeadroom.add(capacity);
+            gained |= !wasEligible.contains(capacity) || capacity.headroomRamMb() > before;
+        }
+        if (gained) {
+            capacityChanged();
+        }
+        log.debug("Host capacity refreshed. Eligible hosts: {}", readings.size());
+    }
+
+    /**
+     * Applies a single-host heartbeat (free RAM/CPU pushed by the host). Eligibility still comes
+     * from readHostStat; a heartbeat for an ineligible host only updates its numbers.
+     */
+    public synchronized void applyHeartbeat(String host, long freeRamMb, double freeCpuPercent) {
+        HostCapacity capacity = hosts.get(host);
+        if (capacity == null || capacity.hostStat == null) {
+            return;
+        }
+        boolean indexed = eligibleByHeadroom.remove(capacity);
+        long before = capacity.headroomRamMb();
+        capacity.reconcile(capacity.hostStat, freeRamMb, freeCpuPercent, clock.getAsLong() - settleMillis, placementPolicy);
+        capacity.eligible = indexed;
+        if (indexed) {
+            eligibleByHeadroom.add(capacity);
+            if (capacity.headroomRamMb() > before) {
+                capacityChanged();
+            }
+        }
+    }
+
+    /** Reserves the job's expected cost on the host chosen by the placement policy, or returns null. */
+    public synchronized HostStat reserve(Stats job) {
+        long start = System.nanoTime();
+        JobCost cost = jobCost.apply(job);
+        HostCapacity capacity = placementPolicy.select(eligibleByHeadroom, job, cost);
+        if (capacity == null) {
+            NO_HEADROOM.increment();
+            RESERVE_TIME.recordSince(start);
+            return null;
+        }
+        eligibleByHeadroom.remove(capacity);
+        capacity.reserve(job, cost, clock.getAsLong());
+        eligibleByHeadroom.add(capacity);
+        placementPolicy.onReserved(capacity, job);
+        PLACED.increment();
+        RESERVE_TIME.recordSince(start);
+        return capacity.hostStat;
+    }
+
+    /** Gives back a reservation whose job never reached the host (send failure, shutdown). */
+    public synchronized void release(HostStat hostStat, Stats job) {
+        HostCapacity capacity = hosts.get(hostStat.getHost());
+        if (capacity == null) {
+            return;
+        }
+        boolean indexed = eligibleByHeadroom.remove(capacity);
+        boolean released = capacity.release(job);
+        if (released) {
+            placementPolicy.onReleased(capacity, job);
+        }
+        if (indexed) {
+            eligibleByHeadroom.add(capacity);
+            capacityChanged();
+        }
+    }
+
+    /**
+     * The job ended on its host: drops its reservation if it has not settled yet and tells the
+     * placement policy the host no longer runs it. The freed RAM/CPU arrives with the next reading.
+     */
+    public synchronized void finished(String host, Stats job) {
+        HostCapacity capacity = hosts.get(host);
+        if (capacity == null) {
+            return;
+        }
+        boolean indexed = eligibleByHeadroom.remove(capacity);
+        boolean released = capacity.release(job);
+        placementPolicy.onReleased(capacity, job);
+        if (indexed) {
+            eligibleByHeadroom.add(capacity);
+            if (released) {
+                capacityChanged();
+            }
+        }
+    }
+
+    public synchronized long capacityVersion() {
+        return capacityVersion;
+    }
+
+    /**
+     * Waits until some host gains headroom after seenVersion was read, or until the fallback
+     * timeout. Returns true if woken by a capacity change.
+     */
+    public synchronized boolean awaitCapacityChange(long seenVersion, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (capacityVersion == seenVersion) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return false;
+            }
+            wait(remaining);
+        }
+        return true;
+    }
+
+    private void capacityChanged() {
+        capacityVersion++;
+        notifyAll();
+    }
+
+    public synchronized boolean hasEligibleHost() {
+        return !eligibleByHeadroom.isEmpty();
+    }
+
+    public synchronized long reservedRamMb(String host) {
+        HostCapacity capacity = hosts.get(host);
+        return capacity == null ? 0 : capacity.reservedRamMb;
+    }
+
+    /** Reserved RAM per host with open reservations; a copy, safe to read from a metrics scrape. */
+    public synchronized Map<String, Long> reservedRamByHost() {
+        Map<String, Long> snapshot = new HashMap<>();
+        hosts.forEach((host, capacity) -> {
+            if (!capacity.reservations.isEmpty()) {
+                snapshot.put(host, capacity.reservedRamMb);
+            }
+        });
+        return snapshot;
+    }
+
+    /** Open reservations per host; a copy, safe to read from a metrics scrape. */
+    public synchronized Map<String, Integer> reservationsByHost() {
+        Map<String, Integer> snapshot = new HashMap<>();
+        hosts.forEach((host, capacity) -> {
+            if (!capacity.reservations.isEmpty()) {
+                snapshot.put(host, capacity.reservations.size());
+            }
+        });
+        return snapshot;
+    }
+
+    public synchronized void startBackgroundRefresh(ScheduledExecutorService executor,
+                                                    Supplier<List<HostStat>> reader, long periodMillis) {
+        if (refreshTask != null) {
+            return;
+        }
+        refreshTask = executor.scheduleWithFixedDelay(() -> {
+            try {
+                refresh(reader.get());
+            } catch (RuntimeException e) {
+                log.error("Background host stat refresh failed", e);
+            }
+        }, 0, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stopBackgroundRefresh() {
+        if (refreshTask != null) {
+            refreshTask.cancel(false);
+            refreshTask = null;
+        }
+    }
+
+    private record Reservation(Stats job, JobCost cost, long reservedAt) {}
+
+    /** Per-host state as seen by placement policies. */
+    static final class HostCapacity {
+        static final Comparator<HostCapacity> BY_HEADROOM =
+                Comparator.comparingLong(HostCapacity::headroomRamMb).thenComparing(HostCapacity::host);
+
+        private final String host;
+        private HostStat hostStat;
+        private boolean eligible;
+        private long freeRamMb;
+        private double freeCpuPercent;
+        // Oldest first; reservations are taken in clock order
+        private final Deque<Reservation> reservations = new ArrayDeque<>();
+        private long reservedRamMb;
+        private double reservedCpuPercent;
+
+        HostCapacity(String host) {
+            this.host = host;
+        }
+
+        // Search key for NavigableSet lookups: sorts before every real host with the same headroom
+        static HostCapacity probe(long headroomRamMb) {
+            HostCapacity probe = new HostCapacity("");
+            probe.freeRamMb = headroomRamMb;
+            return probe;
+        }
+
+        String host() { return host; }
+        long headroomRamMb() { return freeRamMb - reservedRamMb; }
+        double headroomCpuPercent() { return freeCpuPercent - reservedCpuPercent; }
+
+        // RAM the job needs on top of the tool's threshold
+        static long requiredRamMb(JobCost cost) {
+            return cost.ramMb() + cost.ramThresholdMb();
+        }
+
+        boolean fitsRam(JobCost cost) {
+            return headroomRamMb() >= requiredRamMb(cost);
+        }
+
+        boolean fitsCpu(JobCost cost) {
+            return headroomCpuPercent() >= cost.cpuPercent();
+        }
+
+        void reconcile(HostStat reading, long ramMb, double cpuPercent, long settledBefore, HostPlacementPolicy policy) {
+            this.hostStat = reading;
+            this.eligible = true;
+            this.freeRamMb = ramMb;
+            this.freeCpuPercent = cpuPercent;
+            while (!reservations.isEmpty() && reservations.peekFirst().reservedAt() <= settledBefore) {
+                Reservation settled = reservations.pollFirst();
+                drop(settled);
+                SETTLED.increment();
+                policy.onSettled(this, settled.job());
+            }
+        }
+
+        void reserve(Stats job, JobCost cost, long now) {
+            reservations.addLast(new Reservation(job, cost, now));
+            reservedRamMb += cost.ramMb();
+            reservedCpuPercent += cost.cpuPercent();
+        }
+
+        boolean release(Stats job) {
+            for (Iterator<Reservation> it = reservations.iterator(); it.hasNext();) {
+                Reservation reservation = it.next();
+                if (reservation.job() == job) {
+                    it.remove();
+                    drop(reservation);
+                    RELEASED.increment();
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void drop(Reservation reservation) {
+            reservedRamMb -= reservation.cost().ramMb();
+            reservedCpuPercent -= reservation.cost().cpuPercent();
+        }
+    }
+}
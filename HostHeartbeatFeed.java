@@ -0,0 +1,134 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Host heartbeat / capacity-change channel for the scheduler.
+ *
+ * Hosts (or a test stub) push their current free RAM/CPU either in-process through
+ * {@link #publish} or over a socket as one line per heartbeat: {@code <host> <freeRamMb> <freeCpuPercent>}.
+ * Every subscribed {@link HostCapacityModel} applies the reading and wakes its assignment loop if
+ * the host gained headroom. Lines longer than {@link #MAX_LINE_CHARS} are dropped unparsed.
+ */
+public class HostHeartbeatFeed implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(HostHeartbeatFeed.class);
+
+    /** A heartbeat line is a host name and two numbers; anything longer is not one. */
+    static final int MAX_LINE_CHARS = 512;
+
+    private final List<HostCapacityModel> subscribers = new CopyOnWriteArrayList<>();
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+    private volatile ServerSocket serverSocket;
+
+    public void subscribe(HostCapacityModel capacityModel) {
+        subscribers.add(capacityModel);
+    }
+
+    public void publish(String host, long freeRamMb, double freeCpuPercent) {
+        for (HostCapacityModel capacityModel : subscribers) {
+            capacityModel.applyHeartbeat(host, freeRamMb, freeCpuPercent);
+        }
+    }
+
+    /** Accepts heartbeat connections on the address and port until {@link #close()}. */
+    public void listen(InetAddress bindAddress, int port, ExecutorService executor) throws IOException {
+        serverSocket = new ServerSocket(port, 50, bindAddress);
+        log.info("Host heartbeat feed listening on {}:{}", bindAddress.getHostAddress(), port);
+        executor.execute(() -> {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    connections.add(socket);
+                    if (serverSocket.isClosed()) {
+                        connections.remove(socket);
+                        socket.close();  // accepted while close() was running
+                        break;
+                    }
+                    executor.execute(() -> read(socket));
+                } catch (IOException e) {
+                    if (!serverSocket.isClosed()) {
+                        log.error("Heartbeat accept failed", e);
+                    }
+                }
+            }
+        });
+    }
+
+    private void read(Socket socket) {
+        try (socket; BufferedReader reader = new BufferedReader(
+                new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+            StringBuilder buffer = new StringBuilder();
+            String line;
+            while ((line = readLine(reader, buffer)) != null) {
+                if (line.length() > MAX_LINE_CHARS) {
+                    log.warn("Ignoring heartbeat line over {} chars from {}", MAX_LINE_CHARS, socket.getRemoteSocketAddress());
+                    continue;
+                }
+                String[] parts = line.trim().split("\\s+");
+                if (parts.length != 3) {
+                    log.warn("Ignoring malformed heartbeat: {}", line);
+                    continue;
+                }
+                try {
+                    publish(parts[0], Long.parseLong(parts[1]), Double.parseDouble(parts[2]));
+                } catch (NumberFormatException e) {
+                    log.warn("Ignoring malformed heartbeat: {}", line);
+                }
+            }
+        } catch (IOException e) {
+            if (!serverSocket.isClosed()) {
+                log.warn("Heartbeat connection closed: {}", e.toString());
+            }
+        } finally {
+            connections.remove(socket);
+        }
+    }
+
+    // Like readLine, but keeps at most MAX_LINE_CHARS + 1 chars of a line: a longer one comes back
+    // truncated (and is then ignored) instead of growing without bound
+    private static String readLine(BufferedReader reader, StringBuilder buffer) throws IOException {
+        buffer.setLength(0);
+        int c;
+        while ((c = reader.read()) != -1 && c != '\n') {
+            if (buffer.length() <= MAX_LINE_CHARS) {
+                buffer.append((char) c);
+            }
+        }
+        if (c == -1 && buffer.length() == 0) {
+            return null;
+        }
+        int end = buffer.length();
+        if (end > 0 && buffer.charAt(end - 1) == '\r') {
+            end--;
+        }
+        return buffer.substring(0, end);
+    }
+
+    /** Stops accepting and closes every open heartbeat connection, which ends their reader tasks. */
+    @Override
+    public void close() throws IOException {
+        if (serverSocket != null) {
+            serverSocket.close();
+        }
+        for (Socket socket : connections) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                log.debug("Closing heartbeat connection failed: {}", e.toString());
+            }
+        }
+        connections.clear();
+    }
+}
@@ -0,0 +1,110 @@
+import java.util.*;
+
+/**
+ * Chooses a host for a job from the eligible hosts of a {@link HostCapacityModel}.
+ *
+ * Hosts arrive ordered by ascending RAM headroom, so every policy starts with an O(log hosts)
+ * lookup and only walks further when a host fails the CPU check (or, for spread, already runs
+ * the job's group). A job fits when the host keeps the tool's RAM threshold free after it.
+ */
+public interface HostPlacementPolicy {
+
+    HostCapacityModel.HostCapacity select(NavigableSet<HostCapacityModel.HostCapacity> byHeadroom,
+                                          Stats job, HostCapacityModel.JobCost cost);
+
+    /** The job was placed on the host. */
+    default void onReserved(HostCapacityModel.HostCapacity host, Stats job) {}
+
+    /** Host readings now include the job, so its reservation is gone; the job is still running there. */
+    default void onSettled(HostCapacityModel.HostCapacity host, Stats job) {}
+
+    /** The job left the host: it never got there, or it finished. */
+    default void onReleased(HostCapacityModel.HostCapacity host, Stats job) {}
+
+    /** Most RAM headroom first: spreads load evenly. */
+    HostPlacementPolicy LEAST_LOADED = (byHeadroom, job, cost) -> {
+        for (HostCapacityModel.HostCapacity host : byHeadroom.descendingSet()) {
+            if (!host.fitsRam(cost)) {
+                return null;  // Every remaining host has less headroom
+            }
+            if (host.fitsCpu(cost)) {
+                return host;
+            }
+        }
+        return null;
+    };
+
+    /** Smallest headroom that still fits: packs hosts tightly and keeps big hosts free for big jobs. */
+    HostPlacementPolicy BEST_FIT = (byHeadroom, job, cost) -> {
+        long required = HostCapacityModel.HostCapacity.requiredRamMb(cost);
+        for (HostCapacityModel.HostCapacity host : byHeadroom.tailSet(HostCapacityModel.HostCapacity.probe(required), true)) {
+            if (host.fitsCpu(cost)) {
+                return host;
+            }
+        }
+        return null;
+    };
+
+    static HostPlacementPolicy of(String name) {
+        switch (name.toUpperCase()) {
+            case "LEAST_LOADED": return LEAST_LOADED;
+            case "BEST_FIT":     return BEST_FIT;
+            case "SPREAD_GROUP": return new SpreadByGroup();
+            default: throw new IllegalArgumentException("Unknown host placement policy: " + name);
+        }
+    }
+
+    /**
+     * Least-loaded, but jobs of the same CONSUMER_SET funnel group go to different hosts while any
+     * fitting host without that group is left. Jobs without a group id fall back to least-loaded.
+     * A group keeps its host from placement until the job is released, not when it settles.
+     */
+    final class SpreadByGroup implements HostPlacementPolicy {
+        // funnel group id -> host -> jobs of that group reserved there
+        private final Map<String, Map<String, Integer>> groupHosts = new HashMap<>();
+
+        @Override
+        public HostCapacityModel.HostCapacity select(NavigableSet<HostCapacityModel.HostCapacity> byHeadroom,
+                                                     Stats job, HostCapacityModel.JobCost cost) {
+            Map<String, Integer> used = job.getFunnelGroupId() == null ? null : groupHosts.get(job.getFunnelGroupId());
+            if (used == null) {
+                return LEAST_LOADED.select(byHeadroom, job, cost);
+            }
+            HostCapacityModel.HostCapacity fallback = null;
+            for (HostCapacityModel.HostCapacity host : byHeadroom.descendingSet()) {
+                if (!host.fitsRam(cost)) {
+                    break;
+                }
+                if (!host.fitsCpu(cost)) {
+                    continue;
+                }
+                if (!used.containsKey(host.host())) {
+                    return host;
+                }
+                if (fallback == null) {
+                    fallback = host;
+                }
+            }
+            return fallback;
+        }
+
+        @Override
+        public void onReserved(HostCapacityModel.HostCapacity host, Stats job) {
+            if (job.getFunnelGroupId() != null) {
+                groupHosts.computeIfAbsent(job.getFunnelGroupId(), k -> new HashMap<>()).merge(host.host(), 1, Integer::sum);
+            }
+        }
+
+        @Override
+        public void onReleased(HostCapacityModel.HostCapacity host, Stats job) {
+            Map<String, Integer> used = job.getFunnelGroupId() == null ? null : groupHosts.get(job.getFunnelGroupId());
+            if (used == null) {
+                return;
+            }
+            used.computeIfPresent(host.host(), (k, n) -> n == 1 ? null : n - 1);
+            if (used.isEmpty()) {
+                groupHosts.remove(job.getFunnelGroupId());
+            }
+        }
+    }
+}
@@ -0,0 +1,324 @@
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Pipelined job dispatch to scheduler hosts.
+ *
+ * Each host gets its own lane with at most maxInFlightPerHost sends outstanding; further jobs for
+ * that host queue in the lane, so a slow or unresponsive host only delays its own jobs. A send
+ * counts as acknowledged when the sender returns.
+ *
+ * The ack timeout is enforced by the sender itself (socket connect and read timeout), and a lane
+ * slot is held until the sender has actually returned, so a hung host can pin at most
+ * maxInFlightPerHost pool threads. A send still queued on the executor when its timeout passes is
+ * cancelled and never runs. Only sends known not to have reached the host (cancelled, or failed
+ * to connect) are reported through onFailure and may be requeued; a send that failed after
+ * connecting may have started the job, so it is reported through onUnconfirmed instead.
+ *
+ * drain and cancelQueued act on one listener's sends only, so callers dispatching for different
+ * process types never wait on or cancel each other's jobs.
+ */
+public class JobDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(JobDispatcher.class);
+
+    public interface Listener {
+        void onAck(Stats stat, HostStat hostStat);
+
+        /** The job never reached the host; it is safe to send it again. */
+        void onFailure(Stats stat, HostStat hostStat, Throwable error);
+
+        /** The send failed after connecting; the host may or may not be running the job. */
+        void onUnconfirmed(Stats stat, HostStat hostStat, Throwable error);
+    }
+
+    @FunctionalInterface
+    public interface Sender {
+        /**
+         * Sends the job and waits for the host's ack. Must give up within timeoutMillis (socket
+         * connect and read timeout); throw {@link NotDeliveredException} when nothing was written.
+         */
+        void send(Stats stat, HostStat hostStat, int timeoutMillis) throws Exception;
+    }
+
+    /** Thrown by a {@link Sender} when the job certainly did not reach the host. */
+    public static class NotDeliveredException extends Exception {
+        public NotDeliveredException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    // Send lifecycle; QUEUED -> RUNNING -> DONE, or QUEUED -> EXPIRED when it times out before starting
+    private static final int QUEUED = 0, RUNNING = 1, DONE = 2, EXPIRED = 3;
+
+    private final Sender sender;
+    private final ExecutorService sendExecutor;
+    private final int maxInFlightPerHost;
+    private final long ackTimeoutMillis;
+    private final ScheduledExecutorService timers = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "job-dispatch-timer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final Map<String, HostLane> lanes = new ConcurrentHashMap<>();
+    private final Object outstandingLock = new Object();
+    private final Map<Listener, Integer> outstandingByListener = new HashMap<>();
+    private int outstanding;
+
+    public JobDispatcher(Sender sender, ExecutorService sendExecutor,
+                         int maxInFlightPerHost, long ackTimeoutMillis) {
+        this.sender = sender;
+        this.sendExecutor = sendExecutor;
+        this.maxInFlightPerHost = maxInFlightPerHost;
+        this.ackTimeoutMillis = ackTimeoutMillis;
+    }
+
+    /** Queues the send on the host's lane and returns immediately. */
+    public void dispatch(Stats stat, HostStat hostStat, Listener listener) {
+        synchronized (outstandingLock) {
+            outstanding++;
+            outstandingByListener.merge(listener, 1, Integer::sum);
+        }
+        Send send = new Send(stat, hostStat, listener);
+        HostLane lane = lanes.computeIfAbsent(hostStat.getHost(), host -> new HostLane());
+        boolean startNow;
+        synchronized (lane) {
+            startNow = lane.inFlight < maxInFlightPerHost;
+            if (startNow) {
+                lane.inFlight++;
+            } else {
+                lane.queued.addLast(send);
+            }
+        }
+        if (startNow) {
+            start(send, lane);
+        }
+    }
+
+    /** Drops the listener's sends that have not started yet (hook flag); each is reported as a failure. */
+    public int cancelQueued(Listener listener) {
+        List<Send> cancelled = new ArrayList<>();
+        for (HostLane lane : lanes.values()) {
+            synchronized (lane) {
+                for (Iterator<Send> it = lane.queued.iterator(); it.hasNext();) {
+                    Send send = it.next();
+                    if (send.listener() == listener) {
+                        it.remove();
+                        cancelled.add(send);
+                    }
+                }
+            }
+        }
+        for (Send send : cancelled) {
+            finish(send, new NotDeliveredException("Dispatch stopped before send", null));
+        }
+        if (!cancelled.isEmpty()) {
+            log.warn("Cancelled {} queued sends", cancelled.size());
+        }
+        return cancelled.size();
+    }
+
+    /**
+     * Waits until every job dispatched with this listener is acknowledged or failed. Returns false on
+     * timeout; the remaining sends still report to the listener when they end.
+     */
+    public boolean drain(Listener listener, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        synchronized (outstandingLock) {
+            Integer left;
+            while ((left = outstandingByListener.get(listener)) != null) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    log.warn("Dispatch drain timed out with {} sends outstanding", left);
+                    return false;
+                }
+                outstandingLock.wait(remaining);
+            }
+        }
+        return true;
+    }
+
+    public int outstanding() {
+        synchronized (outstandingLock) {
+            return outstanding;
+        }
+    }
+
+    private void start(Send send, HostLane lane) {
+        send.task = sendExecutor.submit(() -> run(send, lane));
+        send.timer = timers.schedule(() -> expire(send, lane), ackTimeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void run(Send send, HostLane lane) {
+        if (!send.state.compareAndSet(QUEUED, RUNNING)) {
+            return; // expired while waiting for a pool thread; already reported and slot released
+        }
+        Throwable error = null;
+        try {
+            sender.send(send.stat(), send.hostStat(), (int) Math.min(Integer.MAX_VALUE, ackTimeoutMillis));
+        } catch (Throwable t) {
+            error = t;
+        } finally {
+            send.state.set(DONE);
+            Future<?> timer = send.timer;
+            if (timer != null) {
+                timer.cancel(false);
+            }
+        }
+        finish(send, error);
+        releaseSlot(lane);
+    }
+
+    private void expire(Send send, HostLane lane) {
+        if (send.state.compareAndSet(QUEUED, EXPIRED)) {
+            send.task.cancel(false); // still queued on the executor: it will never run
+            finish(send, new NotDeliveredException("No free send thread within " + ackTimeoutMillis + " ms", new TimeoutException()));
+            releaseSlot(lane);
+        } else if (send.state.get() == RUNNING) {
+            // The sender's own socket timeout should end it; the slot stays taken until it returns
+            log.warn("Send of [{}] to host [{}] still running after {} ms", send.stat().getProcess(), send.hostStat().getHost(), ackTimeoutMillis);
+            timers.schedule(() -> {
+                if (send.state.get() == RUNNING) {
+                    send.task.cancel(true); // last resort for a sender that ignores its timeout
+                }
+            }, ackTimeoutMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void releaseSlot(HostLane lane) {
+        Send next;
+        synchronized (lane) {
+            next = lane.queued.pollFirst();
+            if (next == null) {
+                lane.inFlight--;
+            }
+        }
+        if (next != null) {
+            start(next, lane);
+        }
+    }
+
+    private void finish(Send send, Throwable error) {
+        try {
+            if (error == null) {
+                send.listener().onAck(send.stat(), send.hostStat());
+            } else if (reachedHost(error)) {
+                log.warn("Send of [{}] to host [{}] unconfirmed: {}", send.stat().getProcess(), send.hostStat().getHost(), error.toString());
+                send.listener().onUnconfirmed(send.stat(), send.hostStat(), error);
+            } else {
+                log.warn("Send of [{}] to host [{}] failed: {}", send.stat().getProcess(), send.hostStat().getHost(), error.toString());
+                send.listener().onFailure(send.stat(), send.hostStat(), error);
+            }
+        } finally {
+            synchronized (outstandingLock) {
+                outstanding--;
+                if (outstandingByListener.merge(send.listener(), -1, Integer::sum) == 0) {
+                    outstandingByListener.remove(send.listener());
+                    outstandingLock.notifyAll();
+                }
+            }
+        }
+    }
+
+    // Connect-phase failures mean nothing was written; anything later might have started the job
+    private static boolean reachedHost(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof NotDeliveredException || t instanceof ConnectException
+                    || t instanceof UnknownHostException || t instanceof NoRouteToHostException) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Listener for one process type's mapHostWithProcess calls: collects acknowledged jobs and gives
+     * failed ones back their host reservation and a place on the pending list. It outlives a call,
+     * so a send that ends after its call stopped draining is picked up by the next call.
+     */
+    public static final class Batch implements Listener {
+        private final HostCapacityModel capacityModel;
+        private final Queue<Stats> acked = new ConcurrentLinkedQueue<>();
+        private final Queue<Stats> failed = new ConcurrentLinkedQueue<>();
+        private final Queue<Stats> unconfirmed = new ConcurrentLinkedQueue<>();
+
+        public Batch(HostCapacityModel capacityModel) {
+            this.capacityModel = capacityModel;
+        }
+
+        @Override
+        public void onAck(Stats stat, HostStat hostStat) {
+            acked.add(stat);
+        }
+
+        @Override
+        public void onFailure(Stats stat, HostStat hostStat, Throwable error) {
+            capacityModel.release(hostStat, stat);
+            failed.add(stat);
+        }
+
+        // Not requeued (it may be running) and the reservation stays until the host's stats settle
+        @Override
+        public void onUnconfirmed(Stats stat, HostStat hostStat, Throwable error) {
+            unconfirmed.add(stat);
+        }
+
+        /** Moves failed jobs back onto the pending list; call from the assignment thread only. */
+        public int requeueFailed(List<Stats> statsList) {
+            int requeued = 0;
+            for (Stats stat; (stat = failed.poll()) != null; requeued++) {
+                statsList.add(stat);
+            }
+            return requeued;
+        }
+
+        /** Removes and returns the jobs acknowledged since the last call. */
+        public List<Stats> takeAcked() {
+            return take(acked);
+        }
+
+        /** Removes and returns the jobs reported unconfirmed since the last call. */
+        public List<Stats> takeUnconfirmed() {
+            return take(unconfirmed);
+        }
+
+        private static List<Stats> take(Queue<Stats> queue) {
+            List<Stats> taken = new ArrayList<>();
+            for (Stats stat; (stat = queue.poll()) != null;) {
+                taken.add(stat);
+            }
+            return taken;
+        }
+    }
+
+    private static final class Send {
+        private final Stats stat;
+        private final HostStat hostStat;
+        private final Listener listener;
+        final AtomicInteger state = new AtomicInteger(QUEUED);
+        volatile Future<?> task;
+        volatile Future<?> timer;
+
+        Send(Stats stat, HostStat hostStat, Listener listener) {
+            this.stat = stat;
+            this.hostStat = hostStat;
+            this.listener = listener;
+        }
+
+        Stats stat() { return stat; }
+        HostStat hostStat() { return hostStat; }
+        Listener listener() { return listener; }
+    }
+
+    private static final class HostLane {
+        private final Deque<Send> queued = new ArrayDeque<>();
+        private int inFlight;
+    }
+}
@@ -1,44 +1,56 @@
 private List<Stats> mapHostWithProcess(List<Stats> statsList, List<HostStat> hostStatList, String processType) {
-    log.info("📡 Sending Scheduler Info to Socket Client... profile: {}", profile);
-    log.info("🔢 HostStat List Size: {}, Stats List Size: {}", hostStatList.size(), statsList.size());
+    long cycleStart = System.nanoTime();
+    Metrics.Gauge pending = pendingStats(processType);
+    log.debug("Assigning {} stats over {} hosts. Profile: {}", statsList.size(), hostStatList.size(), profile);
 
     List<Stats> processedStatList = new ArrayList<>();
+    HostCapacityModel capacityModel = capacityModel(processType);
+    capacityModel.refresh(hostStatList);
+    JobDispatcher.Batch dispatchBatch = dispatchBatch(processType, capacityModel);
 
     do {
-        // Re-evaluate eligible hosts
-        hostStatList = readHostStat(profile, processType);
+        long seenCapacity = capacityModel.capacityVersion();
+        dispatchBatch.requeueFailed(statsList);
+        pending.set(statsList.size());
 
-        if (hostStatList.isEmpty()) {
-            log.info("🚫 No eligible hosts found. Will retry after wait...");
+        if (!capacityModel.hasEligibleHost()) {
+            NO_ELIGIBLE_HOST_WAITS.increment();
+            log.debug("No eligible hosts found. Will retry after wait...");
         }
 
-        for (Iterator<Stats> statIterator = statsList.iterator(); statIterator.hasNext() && !hostStatList.isEmpty();) {
+        // One pass over the batch: each job reserves its expected RAM/CPU on a host immediately
+        for (Iterator<Stats> statIterator = statsList.iterator(); statIterator.hasNext();) {
             Stats stat = statIterator.next();
-            HostStat hostStat = hostStatList.remove(0);  // Assign one host
-
-            // Assign group ID if in CONSUMER_SET
+            // Assign group ID if in CONSUMER_SET (before placement, so spread policies can see it)
             if (Constants.CONSUMER_SET.contains(stat.getProcess())) {
                 String groupId = getGroupId(stat);
                 stat.setFunnelGroupId(groupId);
             }
 
-            socketCommunicator.sendMessage(stat, hostStat);
-            processedStatList.add(stat);
+            long jobStart = System.nanoTime();
+            HostStat hostStat = capacityModel.reserve(stat);
+            if (hostStat == null) {
+                if (!capacityModel.hasEligibleHost()) {
+                    break;  // No eligible hosts left at all
+                }
+                continue;  // Too big for any host right now; smaller jobs behind it may still fit
+            }
+
+            jobDispatcher.dispatch(stat, hostStat, dispatchBatch);  // Acked or requeued asynchronously
             statIterator.remove();  // Remove from pending list
+            ASSIGNMENT_LATENCY.recordSince(jobStart);
 
             // Exit if hook is triggered
             if (SchedulerApplication.getHookFlag()) {
                 log.warn("⚠️ Hook Flag triggered. Breaking assignment loop.");
                 break;
             }
-
-            // Re-evaluate host list again (this is optional and costly)
-            hostStatList = readHostStat(profile, processType);
         }
 
         if (!statsList.isEmpty() && !SchedulerApplication.getHookFlag()) {
             try {
-                TimeUnit.SECONDS.sleep(Constants.HOST_REANALYZE_TIME_SECONDS);
+                // Wakes as soon as a host gains headroom; the reanalyze interval is only a fallback
+                capacityModel.awaitCapacityChange(seenCapacity, TimeUnit.SECONDS.toMillis(Constants.HOST_REANALYZE_TIME_SECONDS));
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
                 log.error("❌ Host reanalyze sleep interrupted", e);
@@ -46,8 +58,117 @@ private List<Stats> mapHostWithProcess(List<Stats> statsList, List<HostStat> hos
             }
         }
 
-    } while (!statsList.isEmpty() && !hostStatList.isEmpty());
+    } while (!statsList.isEmpty() && capacityModel.hasEligibleHost() && !SchedulerApplication.getHookFlag());
 
+    finishDispatch(dispatchBatch, statsList, processedStatList);
+    pending.set(statsList.size());
+    CYCLE_TIME.recordSince(cycleStart);
     log.info("✅ Assignment complete. Processed {} stats.", processedStatList.size());
     return processedStatList;
 }
+
+// Assignment metrics, exported on /metrics and JMX; recording is lock-free, unlike the log lines they replace
+private static final Metrics.Histogram ASSIGNMENT_LATENCY = Metrics.global()
+        .histogram("scheduler_assignment_seconds", "Time to reserve a host for one job and dispatch it");
+private static final Metrics.Histogram CYCLE_TIME = Metrics.global()
+        .histogram("scheduler_assignment_cycle_seconds", "Duration of one mapHostWithProcess call");
+private static final Metrics.Counter NO_ELIGIBLE_HOST_WAITS = Metrics.global()
+        .counter("scheduler_no_eligible_host_waits_total", "Assignment passes that found no eligible host");
+
+private static Metrics.Gauge pendingStats(String processType) {
+    return Metrics.global().gauge("scheduler_pending_stats", "Jobs still waiting in statsList", "process_type", processType);
+}
+
+// Bounded in-flight sends per host; sendMessage applies the timeout as socket connect + read (SO_TIMEOUT) timeout
+private final ExecutorService dispatchExecutor = Executors.newFixedThreadPool(Constants.DISPATCH_THREADS);
+private final JobDispatcher jobDispatcher = new JobDispatcher(
+        (stat, hostStat, timeoutMillis) -> socketCommunicator.sendMessage(stat, hostStat, timeoutMillis),
+        dispatchExecutor,
+        Constants.DISPATCH_MAX_IN_FLIGHT_PER_HOST,
+        TimeUnit.SECONDS.toMillis(Constants.DISPATCH_ACK_TIMEOUT_SECONDS));
+
+// Capacity-change channel: host heartbeats wake waiting assignment loops
+private final HostHeartbeatFeed hostHeartbeatFeed = new HostHeartbeatFeed();
+private final ExecutorService hostHeartbeatExecutor = Executors.newCachedThreadPool();
+// Runs each capacity model's background readHostStat refresh
+private final ScheduledExecutorService hostStatRefresher = Executors.newSingleThreadScheduledExecutor();
+
+@PostConstruct
+void startHostHeartbeatFeed() throws IOException {
+    // Bind to the scheduler's internal interface only (e.g. "127.0.0.1" or the cluster-network address)
+    hostHeartbeatFeed.listen(InetAddress.getByName(Constants.HOST_HEARTBEAT_BIND_ADDRESS),
+            Constants.HOST_HEARTBEAT_PORT, hostHeartbeatExecutor);
+}
+
+@PreDestroy
+void stopHostHeartbeatFeed() throws IOException {
+    hostHeartbeatFeed.close();           // closes the server socket and every accepted connection
+    hostHeartbeatExecutor.shutdownNow(); // their accept / read tasks then end on the SocketException
+    dispatchExecutor.shutdownNow();      // interrupts sends still in flight
+    hostStatRefresher.shutdownNow();     // stops the periodic readHostStat refreshes
+}
+
+// One dispatch batch per process type, kept across calls so sends that outlive a drain report to the next call
+private final Map<String, JobDispatcher.Batch> dispatchBatches = new ConcurrentHashMap<>();
+
+private JobDispatcher.Batch dispatchBatch(String processType, HostCapacityModel capacityModel) {
+    return dispatchBatches.computeIfAbsent(processType, type -> new JobDispatcher.Batch(capacityModel));
+}
+
+// One capacity model per process type, since readHostStat applies per-tool eligibility
+private final Map<String, HostCapacityModel> capacityModels = new ConcurrentHashMap<>();
+
+private HostCapacityModel capacityModel(String processType) {
+    return capacityModels.computeIfAbsent(processType, type -> {
+        HostCapacityModel model = new HostCapacityModel(this::expectedJobCost, HostStat::getFreeRam, HostStat::getFreeCpu,
+                TimeUnit.SECONDS.toMillis(Constants.HOST_STAT_SETTLE_SECONDS),
+                HostPlacementPolicy.of(Constants.HOST_PLACEMENT_POLICY));
+        Metrics.Histogram readTime = Metrics.global()
+                .histogram("scheduler_read_host_stat_seconds", "readHostStat call time", "process_type", type);
+        model.startBackgroundRefresh(hostStatRefresher, () -> {
+            long start = System.nanoTime();
+            try {
+                return readHostStat(profile, type);
+            } finally {
+                readTime.recordSince(start);
+            }
+        }, TimeUnit.SECONDS.toMillis(Constants.HOST_STAT_REFRESH_SECONDS));
+        hostHeartbeatFeed.subscribe(model);
+        Metrics.global().gaugeFamily("scheduler_host_reserved_ram_mb", "RAM reserved by jobs not yet visible in host stats",
+                "host", model::reservedRamByHost, "process_type", type);
+        Metrics.global().gaugeFamily("scheduler_host_reservations", "Open reservations per host",
+                "host", model::reservationsByHost, "process_type", type);
+        return model;
+    });
+}
+
+private HostCapacityModel.JobCost expectedJobCost(Stats stat) {
+    return new HostCapacityModel.JobCost(
+            Constants.JOB_RAM_MB.getOrDefault(stat.getProcess(), Constants.DEFAULT_JOB_RAM_MB),
+            Constants.JOB_CPU_PERCENT.getOrDefault(stat.getProcess(), Constants.DEFAULT_JOB_CPU_PERCENT),
+            Constants.TOOL_RAM_THRESHOLD_MB.getOrDefault(stat.getProcess(), Constants.DEFAULT_TOOL_RAM_THRESHOLD_MB));
+}
+
+// Waits for this batch's in-flight sends; on hook flag, its sends not yet started go back onto the pending list.
+// Sends still running after the timeout land in the batch later and are picked up by the next call.
+private void finishDispatch(JobDispatcher.Batch dispatchBatch, List<Stats> statsList, List<Stats> processedStatList) {
+    if (SchedulerApplication.getHookFlag()) {
+        jobDispatcher.cancelQueued(dispatchBatch);
+    }
+    try {
+        jobDispatcher.drain(dispatchBatch, TimeUnit.SECONDS.toMillis(Constants.DISPATCH_DRAIN_TIMEOUT_SECONDS));
+    } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        log.error("❌ Interrupted while draining in-flight dispatches", e);
+    }
+    int requeued = dispatchBatch.requeueFailed(statsList);
+    if (requeued > 0) {
+        log.warn("⚠️ {} jobs were not delivered and are pending again", requeued);
+    }
+    List<Stats> unconfirmed = dispatchBatch.takeUnconfirmed();
+    if (!unconfirmed.isEmpty()) {
+        log.warn("⚠️ {} jobs failed after reaching their host and are not resent: {}", unconfirmed.size(),
+                unconfirmed.stream().map(Stats::getProcess).toList());
+    }
+    processedStatList.addAll(dispatchBatch.takeAcked());
+}
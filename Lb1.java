@@ -1,16 +1,25 @@
+// Alternative mapHostWithProcess for the scheduler class in Lb.java; uses that class's fields and helpers
 private List<Stats> mapHostWithProcess(List<Stats> statsList, List<HostStat> hostStatList, String processType) {
-    log.info("Sending scheduler info to socket client. Profile: {}", profile);
-    log.info("Initial HostStat list size: {}, Stats list size: {}", hostStatList.size(), statsList.size());
+    long cycleStart = System.nanoTime();
+    Metrics.Gauge pending = pendingStats(processType);
+    log.debug("Assigning {} stats over {} hosts. Profile: {}", statsList.size(), hostStatList.size(), profile);
 
     List<Stats> processedStatList = new ArrayList<>();
 
+    HostCapacityModel capacityModel = capacityModel(processType);
+    capacityModel.refresh(hostStatList);
+    JobDispatcher.Batch dispatchBatch = dispatchBatch(processType, capacityModel);
+
     do {
-        hostStatList = readHostStat(profile, processType);
+        long seenCapacity = capacityModel.capacityVersion();
+        dispatchBatch.requeueFailed(statsList);
+        pending.set(statsList.size());
 
-        if (hostStatList.isEmpty()) {
-            log.warn("No eligible hosts found. Retrying after wait...");
+        if (!capacityModel.hasEligibleHost()) {
+            NO_ELIGIBLE_HOST_WAITS.increment();
+            log.warn("No eligible hosts found. Waiting for a capacity change...");
             try {
-                TimeUnit.SECONDS.sleep(Constants.HOST_REANALYZE_TIME_SECONDS);
+                capacityModel.awaitCapacityChange(seenCapacity, TimeUnit.SECONDS.toMillis(Constants.HOST_REANALYZE_TIME_SECONDS));
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
                 log.error("Sleep interrupted while waiting for eligible hosts", e);
@@ -19,47 +28,40 @@ private List<Stats> mapHostWithProcess(List<Stats> statsList, List<HostStat> hos
             continue;
         }
 
-        for (Iterator<Stats> statIterator = statsList.iterator(); statIterator.hasNext() && !hostStatList.isEmpty();) {
+        // Reservations replace the per-assignment sleep and readHostStat round trip
+        for (Iterator<Stats> statIterator = statsList.iterator(); statIterator.hasNext();) {
             Stats stat = statIterator.next();
-            HostStat hostStat = hostStatList.remove(0);
-
+            // Group ID first, so spread placement can see it
             if (Constants.CONSUMER_SET.contains(stat.getProcess())) {
                 String groupId = getGroupId(stat);
                 stat.setFunnelGroupId(groupId);
             }
 
-            log.info("Assigning stat [{}] to host [{}]", stat.getProcess(), hostStat.getHost());
-            socketCommunicator.sendMessage(stat, hostStat);
-            processedStatList.add(stat);
-            statIterator.remove();
-
-            // Delay to allow host resource stats to reflect the load
-            try {
-                TimeUnit.SECONDS.sleep(2); // Safe default delay
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                log.error("Interrupted while waiting for host to reflect updated resource usage", e);
-                break;
+            long jobStart = System.nanoTime();
+            HostStat hostStat = capacityModel.reserve(stat);
+            if (hostStat == null) {
+                if (!capacityModel.hasEligibleHost()) {
+                    log.warn("No eligible hosts left for this batch. Breaking inner loop.");
+                    break;
+                }
+                continue;  // Doesn't fit anywhere now; keep placing the smaller jobs behind it
             }
 
+            log.debug("Assigning stat [{}] to host [{}]", stat.getProcess(), hostStat.getHost());
+            jobDispatcher.dispatch(stat, hostStat, dispatchBatch);
+            statIterator.remove();
+            ASSIGNMENT_LATENCY.recordSince(jobStart);
+
             if (SchedulerApplication.getHookFlag()) {
                 log.warn("Hook flag detected. Breaking assignment loop.");
                 break;
             }
-
-            // Recheck eligible hosts after each assignment
-            hostStatList = readHostStat(profile, processType);
-
-            if (hostStatList.isEmpty()) {
-                log.warn("No hosts eligible after reassessment. Breaking inner loop.");
-                break;
-            }
         }
 
         if (!statsList.isEmpty() && !SchedulerApplication.getHookFlag()) {
-            log.info("Waiting before next host eligibility recheck...");
+            log.info("Waiting for a capacity change before next placement pass...");
             try {
-                TimeUnit.SECONDS.sleep(Constants.HOST_REANALYZE_TIME_SECONDS);
+                capacityModel.awaitCapacityChange(seenCapacity, TimeUnit.SECONDS.toMillis(Constants.HOST_REANALYZE_TIME_SECONDS));
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
                 log.error("Sleep interrupted during reanalyze phase", e);
@@ -67,8 +69,11 @@ private List<Stats> mapHostWithProcess(List<Stats> statsList, List<HostStat> hos
             }
         }
 
-    } while (!statsList.isEmpty());
+    } while (!statsList.isEmpty() && !SchedulerApplication.getHookFlag());
 
+    finishDispatch(dispatchBatch, statsList, processedStatList);
+    pending.set(statsList.size());
+    CYCLE_TIME.recordSince(cycleStart);
     log.info("Assignment complete. Stats processed: {}", processedStatList.size());
     return processedStatList;
 }
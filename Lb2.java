@@ -1,64 +1,82 @@
+// Alternative mapHostWithProcess for the scheduler class in Lb.java; uses that class's fields and helpers
 private List<Stats> mapHostWithProcess(List<Stats> statsList, List<HostStat> hostStatList, String processType) {
-    log.info("Sending scheduler info to socket client. Profile: {}", profile);
-    log.info("Initial Stats list size: {}", statsList.size());
+    long cycleStart = System.nanoTime();
+    Metrics.Gauge pending = pendingStats(processType);
+    log.debug("Assigning {} stats over {} hosts. Profile: {}", statsList.size(), hostStatList.size(), profile);
 
     List<Stats> processedStatList = new ArrayList<>();
 
-    while (!statsList.isEmpty()) {
-        hostStatList = readHostStat(profile, processType);
+    HostCapacityModel capacityModel = capacityModel(processType);
+    capacityModel.refresh(hostStatList);
+    JobDispatcher.Batch dispatchBatch = dispatchBatch(processType, capacityModel);
 
-        if (hostStatList.isEmpty()) {
-            log.warn("No eligible hosts found. Waiting for 30 seconds before retrying...");
+    while (!statsList.isEmpty() && !SchedulerApplication.getHookFlag()) {
+        long seenCapacity = capacityModel.capacityVersion();
+        dispatchBatch.requeueFailed(statsList);
+        pending.set(statsList.size());
+
+        if (!capacityModel.hasEligibleHost()) {
+            NO_ELIGIBLE_HOST_WAITS.increment();
+            log.warn("No eligible hosts found. Waiting for a capacity change (at most 30 seconds)...");
             try {
-                TimeUnit.SECONDS.sleep(30);
+                capacityModel.awaitCapacityChange(seenCapacity, TimeUnit.SECONDS.toMillis(30));
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
                 log.error("Interrupted while waiting for eligible hosts", e);
                 break;
             }
-
-            hostStatList = readHostStat(profile, processType);
-            if (hostStatList.isEmpty()) {
-                log.warn("Still no eligible hosts after wait. Terminating scheduling loop.");
-                break;
-            }
+            continue;
         }
 
-        Iterator<HostStat> hostIterator = hostStatList.iterator();
-        Iterator<Stats> statIterator = statsList.iterator();
-
-        while (hostIterator.hasNext() && statIterator.hasNext()) {
-            HostStat hostStat = hostIterator.next();
+        // Place the whole batch in one pass; each job reserves its expected load on its host
+        int placed = 0;
+        for (Iterator<Stats> statIterator = statsList.iterator(); statIterator.hasNext();) {
             Stats stat = statIterator.next();
-
+            // Group ID first, so spread placement can see it
             if (Constants.CONSUMER_SET.contains(stat.getProcess())) {
                 String groupId = getGroupId(stat);
                 stat.setFunnelGroupId(groupId);
             }
 
-            log.info("Assigning stat [{}] to host [{}]", stat.getProcess(), hostStat.getHost());
-            socketCommunicator.sendMessage(stat, hostStat);
+            long jobStart = System.nanoTime();
+            HostStat hostStat = capacityModel.reserve(stat);
+            if (hostStat == null) {
+                if (!capacityModel.hasEligibleHost()) {
+                    break;
+                }
+                continue;  // Doesn't fit anywhere now; keep placing the smaller jobs behind it
+            }
 
-            processedStatList.add(stat);
-            hostIterator.remove();
+            log.debug("Assigning stat [{}] to host [{}]", stat.getProcess(), hostStat.getHost());
+            jobDispatcher.dispatch(stat, hostStat, dispatchBatch);
             statIterator.remove();
+            ASSIGNMENT_LATENCY.recordSince(jobStart);
+            placed++;
+
+            if (SchedulerApplication.getHookFlag()) {
+                log.warn("Hook flag triggered. Stopping job assignment.");
+                finishDispatch(dispatchBatch, statsList, processedStatList);
+                pending.set(statsList.size());
+                CYCLE_TIME.recordSince(cycleStart);
+                return processedStatList;
+            }
+        }
 
-            // Optional: allow short delay for host to reflect load
+        if (placed == 0 && !statsList.isEmpty()) {
+            log.warn("No host headroom left. Waiting for a capacity change (at most 30 seconds)...");
             try {
-                TimeUnit.SECONDS.sleep(2);
+                capacityModel.awaitCapacityChange(seenCapacity, TimeUnit.SECONDS.toMillis(30));
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
-                log.error("Interrupted during post-assignment delay", e);
+                log.error("Interrupted while waiting for host headroom", e);
                 break;
             }
-
-            if (SchedulerApplication.getHookFlag()) {
-                log.warn("Hook flag triggered. Stopping job assignment.");
-                return processedStatList;
-            }
         }
     }
 
+    finishDispatch(dispatchBatch, statsList, processedStatList);
+    pending.set(statsList.size());
+    CYCLE_TIME.recordSince(cycleStart);
     log.info("Assignment complete. Stats processed: {}", processedStatList.size());
     return processedStatList;
 }
@@ -0,0 +1,384 @@
+import java.util.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Deterministic discrete-event simulator for the mapHostWithProcess strategies.
+ *
+ * Runs on a virtual clock, so 10k jobs across hundreds of hosts replay in seconds. Hosts have
+ * synthetic RAM/CPU curves (baseline plus a slow sine swing); a job's load only shows up in host
+ * readings loadLagMillis after it starts, which is what the legacy 2-second sleeps were waiting
+ * for. readHostStat and socketCommunicator are simulated: reads and sends cost virtual time and
+ * are counted.
+ *
+ * Strategies:
+ * - LEGACY_LB / LEGACY_LB1 / LEGACY_LB2 replay the original loops of Lb.java, Lb1.java and
+ *   Lb2.java: remove(0) host picks, readHostStat per assignment, fixed sleeps.
+ * - CAPACITY_* drive the real HostCapacityModel and HostPlacementPolicy on the virtual clock, with
+ *   background refresh, heartbeats on job completion and wake-on-capacity-change.
+ *
+ * Real HostStat / Stats instances are built through {@link Fixtures}, so the capacity strategies
+ * exercise the production classes unchanged. The same seed always produces the same report.
+ */
+public class LoadBalancerSimulator {
+
+    private static final Logger log = LoggerFactory.getLogger(LoadBalancerSimulator.class);
+
+    public interface Fixtures {
+        HostStat hostStat(String host, long freeRamMb, double freeCpuPercent);
+
+        Stats job(String process);
+    }
+
+    public enum Strategy {
+        LEGACY_LB, LEGACY_LB1, LEGACY_LB2, CAPACITY_LEAST_LOADED, CAPACITY_BEST_FIT, CAPACITY_SPREAD_GROUP
+    }
+
+    public record Config(int hosts, int jobs, long seed, long hostRamMb, long readHostStatMillis, long sendMillis,
+                         long loadLagMillis, long reanalyzeMillis, long refreshMillis, long settleMillis,
+                         long maxVirtualMillis) {
+
+        public static Config defaults(int hosts, int jobs, long seed) {
+            return new Config(hosts, jobs, seed, 64 * 1024, 150, 20, 2_000, 30_000, 5_000, 10_000,
+                    30L * 24 * 3600 * 1000);
+        }
+    }
+
+    public record Report(Strategy strategy, int jobs, int completed, long makespanMillis, double ramUtilisation,
+                         long waitP50Millis, long waitP95Millis, long waitP99Millis, double dispatchPerSecond,
+                         long readHostStatCalls, int overcommits) {}
+
+    // Tool profiles: expected RAM/CPU per job, per-tool RAM threshold, mean duration
+    private static final String[] TOOLS = {"FUNNEL", "AIML", "IDW", "IEDPS"};
+    private static final long[] TOOL_RAM_MB = {2048, 4096, 1024, 1536};
+    private static final double[] TOOL_CPU_PERCENT = {8, 15, 4, 6};
+    private static final long[] TOOL_THRESHOLD_MB = {1024, 2048, 512, 512};
+    private static final long[] TOOL_MEAN_MILLIS = {6 * 60_000, 12 * 60_000, 3 * 60_000, 4 * 60_000};
+    private static final int FUNNEL_GROUPS = 20;
+
+    public static List<Report> runAll(Fixtures fixtures, Config config) {
+        List<Report> reports = new ArrayList<>();
+        for (Strategy strategy : Strategy.values()) {
+            reports.add(run(fixtures, config, strategy));
+        }
+        return reports;
+    }
+
+    public static Report run(Fixtures fixtures, Config config, Strategy strategy) {
+        long started = System.nanoTime();
+        Report report = new Simulation(fixtures, config, strategy).run();
+        log.info("Simulated {} ({} jobs, {} hosts) in {} ms", strategy, config.jobs(), config.hosts(),
+                (System.nanoTime() - started) / 1_000_000);
+        return report;
+    }
+
+    public static String format(List<Report> reports) {
+        StringBuilder out = new StringBuilder(String.format("%-22s %8s %12s %7s %10s %10s %10s %10s %10s %6s%n",
+                "strategy", "done", "makespan_s", "ram%", "wait_p50_s", "wait_p95_s", "wait_p99_s", "dispatch/s",
+                "reads", "over"));
+        for (Report r : reports) {
+            out.append(String.format("%-22s %8d %12.1f %7.1f %10.1f %10.1f %10.1f %10.2f %10d %6d%n",
+                    r.strategy(), r.completed(), r.makespanMillis() / 1000.0, r.ramUtilisation() * 100,
+                    r.waitP50Millis() / 1000.0, r.waitP95Millis() / 1000.0, r.waitP99Millis() / 1000.0,
+                    r.dispatchPerSecond(), r.readHostStatCalls(), r.overcommits()));
+        }
+        return out.toString();
+    }
+
+    private static final int RAMP = 0, COMPLETE = 1, REFRESH = 2, SCHEDULER = 3;
+
+    private record Event(long time, long seq, int type, SimJob job, long token) {}
+
+    private static final class SimHost {
+        final String name;
+        final long totalRamMb;
+        final long baseRamMb;
+        final long swingRamMb;
+        final double phase;
+        final double baseCpuPercent;
+        long jobRamMb;       // load of jobs past their ramp-up lag
+        double jobCpuPercent;
+
+        SimHost(String name, long totalRamMb, long baseRamMb, long swingRamMb, double phase, double baseCpuPercent) {
+            this.name = name;
+            this.totalRamMb = totalRamMb;
+            this.baseRamMb = baseRamMb;
+            this.swingRamMb = swingRamMb;
+            this.phase = phase;
+            this.baseCpuPercent = baseCpuPercent;
+        }
+
+        long usedRamMb(long now) {
+            return baseRamMb + (long) (swingRamMb * Math.sin(2 * Math.PI * now / 1_800_000.0 + phase)) + jobRamMb;
+        }
+
+        long freeRamMb(long now) {
+            return Math.max(0, totalRamMb - usedRamMb(now));
+        }
+
+        double freeCpuPercent() {
+            return Math.max(0, 100 - baseCpuPercent - jobCpuPercent);
+        }
+    }
+
+    private static final class SimJob {
+        final int tool;
+        final long durationMillis;
+        final Stats stats;
+        SimHost host;
+        long dispatchedAt = -1;
+
+        SimJob(int tool, long durationMillis, Stats stats) {
+            this.tool = tool;
+            this.durationMillis = durationMillis;
+            this.stats = stats;
+        }
+    }
+
+    private static final class Simulation {
+        private final Fixtures fixtures;
+        private final Config config;
+        private final Strategy strategy;
+
+        private final PriorityQueue<Event> events =
+                new PriorityQueue<>(Comparator.comparingLong(Event::time).thenComparingLong(Event::seq));
+        private final List<SimHost> hosts = new ArrayList<>();
+        private final Map<String, SimHost> hostsByName = new HashMap<>();
+        private final Deque<SimJob> pending = new ArrayDeque<>();
+        private final Map<Stats, SimJob> jobsByStats = new IdentityHashMap<>();
+        private final List<SimJob> allJobs = new ArrayList<>();
+
+        private long now;
+        private long seq;
+        private long schedulerToken;
+        private long readHostStatCalls;
+        private int overcommits;
+        private int completed;
+        private long lastDispatch;
+        private double jobRamMillis;
+
+        // Legacy state: the host list the loop is currently walking
+        private List<SimHost> legacyHosts = new ArrayList<>();
+
+        // Capacity-model state
+        private HostCapacityModel capacityModel;
+        private long waitingOnVersion = -1;
+
+        Simulation(Fixtures fixtures, Config config, Strategy strategy) {
+            this.fixtures = fixtures;
+            this.config = config;
+            this.strategy = strategy;
+            SplittableRandom random = new SplittableRandom(config.seed());
+            for (int i = 0; i < config.hosts(); i++) {
+                long total = (long) (config.hostRamMb() * (0.5 + random.nextDouble()));
+                SimHost host = new SimHost(String.format("host-%04d", i), total,
+                        (long) (total * (0.2 + 0.2 * random.nextDouble())), total / 20,
+                        random.nextDouble() * 2 * Math.PI, 5 + 15 * random.nextDouble());
+                hosts.add(host);
+                hostsByName.put(host.name, host);
+            }
+            for (int i = 0; i < config.jobs(); i++) {
+                int tool = random.nextInt(TOOLS.length);
+                // Log-normal durations around the tool's mean
+                double gaussian = gaussian(random);
+                long duration = (long) (TOOL_MEAN_MILLIS[tool] * Math.exp(0.5 * gaussian - 0.125));
+                Stats stats = fixtures.job(TOOLS[tool]);
+                if (tool == 0) {
+                    stats.setFunnelGroupId("G" + (i % FUNNEL_GROUPS));
+                }
+                SimJob job = new SimJob(tool, Math.max(1_000, duration), stats);
+                pending.add(job);
+                allJobs.add(job);
+                jobsByStats.put(stats, job);
+            }
+        }
+
+        Report run() {
+            if (strategy.name().startsWith("CAPACITY_")) {
+                HostPlacementPolicy policy = HostPlacementPolicy.of(strategy.name().substring("CAPACITY_".length()));
+                capacityModel = new HostCapacityModel(this::jobCost, HostStat::getFreeRam, HostStat::getFreeCpu,
+                        config.settleMillis(), policy, () -> now);
+                capacityModel.refresh(readHostStat(-1));
+                push(config.refreshMillis(), REFRESH, null, 0);
+            }
+            scheduleScheduler(0);
+
+            while (completed < allJobs.size() && !events.isEmpty()) {
+                Event event = events.poll();
+                if (event.time() > config.maxVirtualMillis()) {
+                    log.warn("{} stopped at virtual time limit with {} jobs unfinished", strategy, allJobs.size() - completed);
+                    break;
+                }
+                now = event.time();
+                switch (event.type()) {
+                    case RAMP -> ramp(event.job());
+                    case COMPLETE -> complete(event.job());
+                    case REFRESH -> {
+                        capacityModel.refresh(readHostStat(-1));
+                        wakeIfCapacityChanged();
+                        push(now + config.refreshMillis(), REFRESH, null, 0);
+                    }
+                    case SCHEDULER -> {
+                        if (event.token() == schedulerToken) {
+                            long next = strategy.name().startsWith("CAPACITY_") ? capacityStep() : legacyStep();
+                            if (next >= 0) {
+                                scheduleScheduler(next);
+                            }
+                        }
+                    }
+                    default -> throw new IllegalStateException("Unknown event type " + event.type());
+                }
+            }
+            return report();
+        }
+
+        // One step of the original loops; returns the virtual time of the next step
+        private long legacyStep() {
+            if (pending.isEmpty()) {
+                return -1;
+            }
+            int tool = pending.peekFirst().tool;
+            switch (strategy) {
+                case LEGACY_LB, LEGACY_LB1 -> {
+                    // Both re-read eligible hosts after every assignment; Lb1 also sleeps 2 s per job
+                    List<SimHost> eligible = readHosts(tool);
+                    long t = now + config.readHostStatMillis();
+                    if (eligible.isEmpty()) {
+                        return t + config.reanalyzeMillis();
+                    }
+                    dispatch(pending.pollFirst(), eligible.get(0), t + config.sendMillis());
+                    return t + config.sendMillis() + (strategy == Strategy.LEGACY_LB1 ? 2_000 : 0);
+                }
+                case LEGACY_LB2 -> {
+                    // Walks one host list, one job per host with a 2 s sleep each, then re-reads
+                    if (legacyHosts.isEmpty()) {
+                        legacyHosts = readHosts(tool);
+                        long t = now + config.readHostStatMillis();
+                        return legacyHosts.isEmpty() ? t + 30_000 : t;
+                    }
+                    dispatch(pending.pollFirst(), legacyHosts.remove(0), now + config.sendMillis());
+                    return now + config.sendMillis() + 2_000;
+                }
+                default -> throw new IllegalStateException("Not a legacy strategy: " + strategy);
+            }
+        }
+
+        // One placement pass against the capacity model, as in Lb.java; waits on capacity changes when stuck
+        private long capacityStep() {
+            long seenVersion = capacityModel.capacityVersion();
+            for (Iterator<SimJob> it = pending.iterator(); it.hasNext();) {
+                SimJob job = it.next();
+                HostStat hostStat = capacityModel.reserve(job.stats);
+                if (hostStat == null) {
+                    if (!capacityModel.hasEligibleHost()) {
+                        break;  // No eligible hosts left at all
+                    }
+                    continue;  // Too big for any host right now; smaller jobs behind it may still fit
+                }
+                it.remove();
+                // Sends are pipelined per host, so each job only pays its own send latency
+                dispatch(job, hostsByName.get(hostStat.getHost()), now + config.sendMillis());
+            }
+            if (pending.isEmpty()) {
+                return -1;
+            }
+            waitingOnVersion = seenVersion;
+            return now + config.reanalyzeMillis();
+        }
+
+        private void wakeIfCapacityChanged() {
+            if (waitingOnVersion >= 0 && capacityModel.capacityVersion() != waitingOnVersion) {
+                waitingOnVersion = -1;
+                scheduleScheduler(now);
+            }
+        }
+
+        private void dispatch(SimJob job, SimHost host, long startAt) {
+            job.host = host;
+            job.dispatchedAt = startAt;
+            lastDispatch = Math.max(lastDispatch, startAt);
+            push(startAt + config.loadLagMillis(), RAMP, job, 0);
+            push(startAt + job.durationMillis, COMPLETE, job, 0);
+        }
+
+        private void ramp(SimJob job) {
+            SimHost host = job.host;
+            host.jobRamMb += TOOL_RAM_MB[job.tool];
+            host.jobCpuPercent += TOOL_CPU_PERCENT[job.tool];
+            if (host.usedRamMb(now) > host.totalRamMb) {
+                overcommits++;
+            }
+        }
+
+        private void complete(SimJob job) {
+            SimHost host = job.host;
+            host.jobRamMb -= TOOL_RAM_MB[job.tool];
+            host.jobCpuPercent -= TOOL_CPU_PERCENT[job.tool];
+            jobRamMillis += (double) TOOL_RAM_MB[job.tool] * job.durationMillis;
+            completed++;
+            if (capacityModel != null) {
+                capacityModel.finished(host.name, job.stats);
+                capacityModel.applyHeartbeat(host.name, host.freeRamMb(now), host.freeCpuPercent());
+                wakeIfCapacityChanged();
+            }
+        }
+
+        // Simulated readHostStat: hosts with room for the tool's job above its RAM threshold (-1 = all hosts)
+        private List<SimHost> readHosts(int tool) {
+            readHostStatCalls++;
+            List<SimHost> eligible = new ArrayList<>();
+            for (SimHost host : hosts) {
+                if (tool < 0 || (host.freeRamMb(now) >= TOOL_RAM_MB[tool] + TOOL_THRESHOLD_MB[tool]
+                        && host.freeCpuPercent() >= TOOL_CPU_PERCENT[tool])) {
+                    eligible.add(host);
+                }
+            }
+            return eligible;
+        }
+
+        private List<HostStat> readHostStat(int tool) {
+            List<HostStat> readings = new ArrayList<>();
+            for (SimHost host : readHosts(tool)) {
+                readings.add(fixtures.hostStat(host.name, host.freeRamMb(now), host.freeCpuPercent()));
+            }
+            return readings;
+        }
+
+        private HostCapacityModel.JobCost jobCost(Stats stats) {
+            int tool = jobsByStats.get(stats).tool;
+            return new HostCapacityModel.JobCost(TOOL_RAM_MB[tool], TOOL_CPU_PERCENT[tool], TOOL_THRESHOLD_MB[tool]);
+        }
+
+        private void scheduleScheduler(long time) {
+            push(time, SCHEDULER, null, ++schedulerToken);
+        }
+
+        private void push(long time, int type, SimJob job, long token) {
+            events.add(new Event(time, seq++, type, job, token));
+        }
+
+        private Report report() {
+            long[] waits = allJobs.stream().filter(j -> j.dispatchedAt >= 0).mapToLong(j -> j.dispatchedAt).sorted().toArray();
+            long totalRamMb = hosts.stream().mapToLong(h -> h.totalRamMb).sum();
+            double utilisation = now == 0 ? 0 : jobRamMillis / ((double) totalRamMb * now);
+            double dispatchPerSecond = lastDispatch == 0 ? 0 : waits.length / (lastDispatch / 1000.0);
+            return new Report(strategy, allJobs.size(), completed, now, utilisation,
+                    percentile(waits, 0.50), percentile(waits, 0.95), percentile(waits, 0.99),
+                    dispatchPerSecond, readHostStatCalls, overcommits);
+        }
+
+        private static long percentile(long[] sorted, double p) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)];
+        }
+
+        // Box-Muller, so the run depends only on the seed
+        private static double gaussian(SplittableRandom random) {
+            double u1 = 1.0 - random.nextDouble();
+            double u2 = random.nextDouble();
+            return Math.sqrt(-2 * Math.log(u1)) * Math.cos(2 * Math.PI * u2);
+        }
+    }
+}
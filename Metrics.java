@@ -0,0 +1,396 @@
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.*;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Low-overhead metrics for the scheduler, the config gate and the AIT migrator.
+ *
+ * Recording never locks and never allocates: counters are LongAdders, histograms are log-linear
+ * bucket arrays (HDR-style, 32 sub-buckets per power of two, ~3% relative error) striped by thread,
+ * so a hot path pays a few nanoseconds instead of a log line. Everything is read on demand: the
+ * Prometheus text endpoint ({@link #scrape}) and the JMX bean merge the stripes when asked.
+ *
+ * Series are identified by name plus label pairs; asking for the same series twice returns the
+ * same instance, so callers can look them up once into a field and keep the reference.
+ *
+ * <pre>
+ * private static final Metrics.Histogram RESERVE = Metrics.global()
+ *         .histogram("scheduler_reserve_seconds", "HostCapacityModel.reserve call time");
+ * long start = System.nanoTime();
+ * ...
+ * RESERVE.recordSince(start);
+ * </pre>
+ */
+public final class Metrics {
+
+    private static final Logger log = LoggerFactory.getLogger(Metrics.class);
+
+    private static final Metrics GLOBAL = new Metrics();
+
+    static {
+        GLOBAL.registerJmx("scheduler:type=Metrics");
+    }
+
+    /** Process-wide registry shared by the scheduler, gate and migrator; exported on /metrics and JMX. */
+    public static Metrics global() {
+        return GLOBAL;
+    }
+
+    private enum Type { counter, gauge, summary }
+
+    private record Family(String name, String help, Type type, Map<String, Object> series) {}
+
+    private final Map<String, Family> families = new ConcurrentHashMap<>();
+
+    // === registration ===
+
+    /** labels are name/value pairs: counter("gate_decisions_total", "...", "result", "blocked"). */
+    public Counter counter(String name, String help, String... labels) {
+        return (Counter) series(name, help, Type.counter, labels, Counter::new);
+    }
+
+    /** A gauge the caller sets. */
+    public Gauge gauge(String name, String help, String... labels) {
+        return (Gauge) series(name, help, Type.gauge, labels, Gauge::new);
+    }
+
+    /** A gauge read from value at scrape time; registering the same series again replaces the supplier. */
+    public void gauge(String name, String help, DoubleSupplier value, String... labels) {
+        family(name, help, Type.gauge).series().put(renderLabels(labels), value);
+    }
+
+    /**
+     * One gauge per key of the supplied map, e.g. reserved RAM per host. The map is read at scrape
+     * time and keys that disappear from it simply stop being reported.
+     */
+    public void gaugeFamily(String name, String help, String label,
+                            Supplier<Map<String, ? extends Number>> values, String... labels) {
+        family(name, help, Type.gauge).series().put(renderLabels(labels), new GaugeFamily(label, values));
+    }
+
+    /** Latency histogram; values are recorded in nanoseconds and exported in seconds. */
+    public Histogram histogram(String name, String help, String... labels) {
+        return (Histogram) series(name, help, Type.summary, labels, Histogram::new);
+    }
+
+    private Object series(String name, String help, Type type, String[] labels, Supplier<Object> create) {
+        return family(name, help, type).series().computeIfAbsent(renderLabels(labels), k -> create.get());
+    }
+
+    private Family family(String name, String help, Type type) {
+        Family family = families.computeIfAbsent(name, n -> new Family(n, help, type, new ConcurrentHashMap<>()));
+        if (family.type() != type) {
+            throw new IllegalArgumentException("Metric " + name + " is already registered as a " + family.type());
+        }
+        return family;
+    }
+
+    // {k1="v1",k2="v2"} in the order given; "" without labels
+    private static String renderLabels(String... labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be name/value pairs: " + Arrays.toString(labels));
+        }
+        if (labels.length == 0) {
+            return "";
+        }
+        StringJoiner joiner = new StringJoiner(",", "{", "}");
+        for (int i = 0; i < labels.length; i += 2) {
+            joiner.add(labels[i] + "=\"" + escape(labels[i + 1]) + "\"");
+        }
+        return joiner.toString();
+    }
+
+    private static String escape(String value) {
+        return String.valueOf(value).replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    // {a="1"} + b="2" -> {a="1",b="2"}
+    private static String withLabel(String rendered, String label, String value) {
+        String pair = label + "=\"" + escape(value) + "\"";
+        return rendered.isEmpty() ? "{" + pair + "}" : rendered.substring(0, rendered.length() - 1) + "," + pair + "}";
+    }
+
+    // === metric types ===
+
+    public static final class Counter {
+        private final LongAdder value = new LongAdder();
+
+        public void increment() {
+            value.increment();
+        }
+
+        public void add(long amount) {
+            value.add(amount);
+        }
+
+        public long get() {
+            return value.sum();
+        }
+    }
+
+    public static final class Gauge {
+        private final AtomicLong value = new AtomicLong();
+
+        public void set(long v) {
+            value.set(v);
+        }
+
+        public void add(long delta) {
+            value.addAndGet(delta);
+        }
+
+        public long get() {
+            return value.get();
+        }
+    }
+
+    private record GaugeFamily(String label, Supplier<Map<String, ? extends Number>> values) {}
+
+    /**
+     * Log-linear histogram of nanosecond values. Values below 64 ns get exact buckets; above that
+     * each power of two is split into 32 buckets. Values are clamped to 2^44 ns (~4.9 hours).
+     */
+    public static final class Histogram {
+        static final int SUB_BITS = 5;
+        static final int SUB = 1 << SUB_BITS;
+        static final int MAX_EXPONENT = 43;
+        static final int BUCKETS = (MAX_EXPONENT - SUB_BITS + 1) * SUB + SUB;
+        static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+        private static final int STRIPES = Math.min(16, Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 2 - 1));
+
+        private final AtomicLongArray[] stripes = new AtomicLongArray[STRIPES];
+        private final LongAdder sum = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        Histogram() {
+            for (int i = 0; i < STRIPES; i++) {
+                stripes[i] = new AtomicLongArray(BUCKETS);
+            }
+        }
+
+        public void record(long nanos) {
+            long v = Math.max(0, Math.min(MAX_VALUE, nanos));
+            stripes[(int) Thread.currentThread().getId() & (STRIPES - 1)].incrementAndGet(bucket(v));
+            sum.add(v);
+            max.accumulate(v);
+        }
+
+        public void recordSince(long startNanos) {
+            record(System.nanoTime() - startNanos);
+        }
+
+        static int bucket(long v) {
+            if (v < 2 * SUB) {
+                return (int) v;
+            }
+            int shift = 63 - Long.numberOfLeadingZeros(v) - SUB_BITS;
+            return (shift + 1) * SUB + (int) (v >>> shift) - SUB;
+        }
+
+        // Highest value that lands in the bucket, as HDR reports percentiles
+        static long highestEquivalent(int bucket) {
+            if (bucket < 2 * SUB) {
+                return bucket;
+            }
+            int shift = bucket / SUB - 1;
+            long mantissa = SUB + bucket % SUB;
+            return ((mantissa + 1) << shift) - 1;
+        }
+
+        public Snapshot snapshot() {
+            long[] counts = new long[BUCKETS];
+            long total = 0;
+            for (AtomicLongArray stripe : stripes) {
+                for (int i = 0; i < BUCKETS; i++) {
+                    long c = stripe.get(i);
+                    counts[i] += c;
+                    total += c;
+                }
+            }
+            return new Snapshot(counts, total, sum.sum(), max.get());
+        }
+    }
+
+    /** Merged view of a histogram at one point in time. Values in nanoseconds. */
+    public record Snapshot(long[] counts, long count, long sumNanos, long maxNanos) {
+        public long valueAt(double quantile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(quantile * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(Histogram.highestEquivalent(i), maxNanos);
+                }
+            }
+            return maxNanos;
+        }
+    }
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private static double seconds(long nanos) {
+        return nanos / (double) TimeUnit.SECONDS.toNanos(1);
+    }
+
+    // === Prometheus text exposition (format 0.0.4) ===
+
+    /** Histograms are exported as summaries (quantiles since start, plus _sum, _count and a _max gauge). */
+    public String scrape() {
+        StringBuilder out = new StringBuilder(4096);
+        List<Family> sorted = new ArrayList<>(families.values());
+        sorted.sort(Comparator.comparing(Family::name));
+        for (Family family : sorted) {
+            out.append("# HELP ").append(family.name()).append(' ').append(family.help().replace("\n", " ")).append('\n');
+            out.append("# TYPE ").append(family.name()).append(' ').append(family.type()).append('\n');
+            List<Histogram> histograms = new ArrayList<>();
+            List<String> histogramLabels = new ArrayList<>();
+            new TreeMap<>(family.series()).forEach((labels, metric) -> {
+                if (metric instanceof Histogram h) {
+                    histograms.add(h);
+                    histogramLabels.add(labels);
+                    Snapshot s = h.snapshot();
+                    for (double q : QUANTILES) {
+                        sample(out, family.name(), withLabel(labels, "quantile", String.valueOf(q)), seconds(s.valueAt(q)));
+                    }
+                    sample(out, family.name() + "_sum", labels, seconds(s.sumNanos()));
+                    sample(out, family.name() + "_count", labels, s.count());
+                } else {
+                    forEachValue(labels, metric, (series, value) -> sample(out, family.name(), series, value));
+                }
+            });
+            if (!histograms.isEmpty()) {
+                out.append("# TYPE ").append(family.name()).append("_max gauge\n");
+                for (int i = 0; i < histograms.size(); i++) {
+                    sample(out, family.name() + "_max", histogramLabels.get(i), seconds(histograms.get(i).max.get()));
+                }
+            }
+        }
+        return out.toString();
+    }
+
+    private interface SeriesValue {
+        void accept(String labels, double value);
+    }
+
+    // Counters, settable gauges, supplied gauges and gauge families, flattened to (labels, value)
+    private static void forEachValue(String labels, Object metric, SeriesValue sink) {
+        if (metric instanceof Counter c) {
+            sink.accept(labels, c.get());
+        } else if (metric instanceof Gauge g) {
+            sink.accept(labels, g.get());
+        } else if (metric instanceof DoubleSupplier supplier) {
+            sink.accept(labels, supplier.getAsDouble());
+        } else if (metric instanceof GaugeFamily f) {
+            new TreeMap<>(f.values().get()).forEach((key, value) ->
+                    sink.accept(withLabel(labels, f.label(), key), value.doubleValue()));
+        }
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, double value) {
+        out.append(name).append(labels).append(' ');
+        if (value == Math.rint(value) && !Double.isInfinite(value)) {
+            out.append((long) value);
+        } else {
+            out.append(value);
+        }
+        out.append('\n');
+    }
+
+    // === JMX ===
+
+    /** Registers a read-only bean exposing every series as an attribute; failures are logged, not thrown. */
+    public void registerJmx(String objectName) {
+        try {
+            ObjectName name = new ObjectName(objectName);
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (!server.isRegistered(name)) {
+                server.registerMBean(new MetricsBean(), name);
+            }
+        } catch (JMException | RuntimeException e) {
+            log.warn("Could not register metrics MBean {}", objectName, e);
+        }
+    }
+
+    // Attribute names are the Prometheus series names; histograms add .count/.p50/.p99/.p999/.max in seconds
+    private final class MetricsBean implements DynamicMBean {
+
+        private Map<String, Object> values() {
+            Map<String, Object> values = new TreeMap<>();
+            for (Family family : families.values()) {
+                family.series().forEach((labels, metric) -> {
+                    if (metric instanceof Histogram h) {
+                        Snapshot s = h.snapshot();
+                        String base = family.name() + labels;
+                        values.put(base + ".count", s.count());
+                        values.put(base + ".p50", seconds(s.valueAt(0.5)));
+                        values.put(base + ".p99", seconds(s.valueAt(0.99)));
+                        values.put(base + ".p999", seconds(s.valueAt(0.999)));
+                        values.put(base + ".max", seconds(s.maxNanos()));
+                    } else {
+                        forEachValue(labels, metric, (series, value) -> values.put(family.name() + series, value));
+                    }
+                });
+            }
+            return values;
+        }
+
+        @Override
+        public Object getAttribute(String attribute) throws AttributeNotFoundException {
+            Object value = values().get(attribute);
+            if (value == null) {
+                throw new AttributeNotFoundException(attribute);
+            }
+            return value;
+        }
+
+        @Override
+        public AttributeList getAttributes(String[] attributes) {
+            Map<String, Object> values = values();
+            AttributeList list = new AttributeList();
+            for (String attribute : attributes) {
+                if (values.containsKey(attribute)) {
+                    list.add(new Attribute(attribute, values.get(attribute)));
+                }
+            }
+            return list;
+        }
+
+        @Override
+        public MBeanInfo getMBeanInfo() {
+            List<MBeanAttributeInfo> attributes = new ArrayList<>();
+            values().forEach((name, value) -> attributes.add(new MBeanAttributeInfo(
+                    name, value.getClass().getName(), name, true, false, false)));
+            return new MBeanInfo(Metrics.class.getName(), "Scheduler, gate and migration metrics",
+                    attributes.toArray(MBeanAttributeInfo[]::new), null, null, null);
+        }
+
+        @Override
+        public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+            throw new AttributeNotFoundException("Metrics are read-only: " + attribute.getName());
+        }
+
+        @Override
+        public AttributeList setAttributes(AttributeList attributes) {
+            return new AttributeList();
+        }
+
+        @Override
+        public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+            throw new ReflectionException(new NoSuchMethodException(actionName));
+        }
+    }
+}
@@ -0,0 +1,20 @@
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Prometheus scrape endpoint for {@link Metrics#global()}.
+ *
+ * <pre>
+ * scrape_configs:
+ *   - job_name: scheduler
+ *     metrics_path: /metrics
+ * </pre>
+ */
+@RestController
+public class MetricsController {
+
+    @GetMapping(value = "/metrics", produces = "text/plain; version=0.0.4; charset=utf-8")
+    public String metrics() {
+        return Metrics.global().scrape();
+    }
+}
@@ -1,7 +1,14 @@
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
 import java.sql.*;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import javax.sql.DataSource;
 
 public class AitMigrator {
 
@@ -11,46 +18,339 @@ public class AitMigrator {
             String cfgTable, String dbpTable
     ) throws Exception {
         if (sourceRows == null || sourceRows.isEmpty()) return;
+        long start = System.nanoTime();
+        migrate(SOURCE_COLUMNS, toPositional(sourceRows), dst, cfgTable, dbpTable, Integer.MAX_VALUE, null);
+        completed(BATCH_RATE, sourceRows.size(), start);
+    }
 
-        // 1) Build explicit mappings (DEST COL -> value from row/default)
-        LinkedHashMap<String, Function<Map<String,Object>, Object>> cfgMap = buildCfgMap();
-        LinkedHashMap<String, Function<Map<String,Object>, Object>> dbpMap = buildDbpMap();
+    /** Positional rows: row[i] is the value of sourceColumns[i] (e.g. straight from a ResultSet). */
+    public static void migrate(
+            String[] sourceColumns, List<Object[]> sourceRows, Connection dst,
+            String cfgTable, String dbpTable
+    ) throws Exception {
+        if (sourceRows == null || sourceRows.isEmpty()) return;
+        long start = System.nanoTime();
+        migrate(sourceColumns, sourceRows, dst, cfgTable, dbpTable, Integer.MAX_VALUE, null);
+        completed(BATCH_RATE, sourceRows.size(), start);
+    }
+
+    // batchSize rows per executeBatch; each executeBatch holds one inFlight permit (null = unbounded)
+    private static void migrate(
+            String[] sourceColumns, List<Object[]> sourceRows, Connection dst,
+            String cfgTable, String dbpTable,
+            int batchSize, Semaphore inFlight
+    ) throws Exception {
+        if (sourceRows == null || sourceRows.isEmpty()) return;
+
+        // 1) Compile the mappings against this row layout (DEST COL -> typed setter)
+        BindingPlan cfgPlan = BindingPlan.compile(CFG_COLUMNS, sourceColumns, columnTypes(dst, cfgTable));
+        BindingPlan dbpPlan = BindingPlan.compile(DBP_COLUMNS, sourceColumns, columnTypes(dst, dbpTable));
+        int aitPos = position(sourceColumns, "AIT_NO");
+        if (aitPos < 0) throw new IllegalArgumentException("Source rows have no AIT_NO column");
 
         // 2) Unique AIT list to wipe first
-        Set<Object> aits = sourceRows.stream().map(r -> r.get("AIT_NO")).collect(Collectors.toSet());
+        Set<Object> aits = new LinkedHashSet<>();
+        for (Object[] row : sourceRows) aits.add(row[aitPos]);
 
         dst.setAutoCommit(false);
         try {
             deleteByAits(dst, cfgTable, aits);
             deleteByAits(dst, dbpTable, aits);
 
-            String cfgSql = buildInsertSql(cfgTable, cfgMap.keySet(), "LAST_UPDATED");
-            String dbpSql = buildInsertSql(dbpTable, dbpMap.keySet(), "LAST_UPDATED");
+            String cfgSql = buildInsertSql(cfgTable, destColumns(CFG_COLUMNS), "LAST_UPDATED");
+            String dbpSql = buildInsertSql(dbpTable, destColumns(DBP_COLUMNS), "LAST_UPDATED");
 
             try (PreparedStatement psCfg = dst.prepareStatement(cfgSql);
                  PreparedStatement psDbp = dst.prepareStatement(dbpSql)) {
 
                 Timestamp now = new Timestamp(System.currentTimeMillis());
                 Set<Object> seen = new HashSet<>();
+                int rowsInBatch = 0;
 
-                for (Map<String,Object> row : sourceRows) {
-                    Object ait = row.get("AIT_NO");
-
+                for (Object[] row : sourceRows) {
                     // AIT_CONFIG: once per AIT
-                    if (seen.add(ait)) {
-                        bind(psCfg, row, cfgMap);
-                        psCfg.setTimestamp(cfgMap.size()+1, now);
+                    if (seen.add(row[aitPos])) {
+                        cfgPlan.bind(psCfg, row);
+                        psCfg.setTimestamp(cfgPlan.size()+1, now);
                         psCfg.addBatch();
                     }
                     // AIT_DBPROP: every row
-                    bind(psDbp, row, dbpMap);
-                    psDbp.setTimestamp(dbpMap.size()+1, now);
+                    dbpPlan.bind(psDbp, row);
+                    psDbp.setTimestamp(dbpPlan.size()+1, now);
                     psDbp.addBatch();
+
+                    if (++rowsInBatch >= batchSize) {
+                        executeBatches(inFlight, psCfg, psDbp);
+                        rowsInBatch = 0;
+                    }
+                }
+                executeBatches(inFlight, psCfg, psDbp);
+            }
+            dst.commit();
+            BATCH_ROWS.add(sourceRows.size()); // after commit, so retried partitions count once
+        } catch (Exception e) {
+            dst.rollback();
+            throw e;
+        } finally {
+            dst.setAutoCommit(true);
+        }
+    }
+
+    // Flattens Map rows into the SOURCE_COLUMNS layout once, instead of a map lookup per bound cell
+    private static List<Object[]> toPositional(List<Map<String,Object>> rows) {
+        List<Object[]> out = new ArrayList<>(rows.size());
+        for (Map<String,Object> row : rows) {
+            Object[] values = new Object[SOURCE_COLUMNS.length];
+            for (int i = 0; i < values.length; i++) values[i] = row.get(SOURCE_COLUMNS[i]);
+            out.add(values);
+        }
+        return out;
+    }
+
+    private static List<String> destColumns(List<Col> cols) { return cols.stream().map(Col::dest).toList(); }
+
+    private static void executeBatches(Semaphore inFlight, PreparedStatement... statements) throws Exception {
+        if (inFlight != null) inFlight.acquire();
+        long start = System.nanoTime();
+        try {
+            for (PreparedStatement ps : statements) ps.executeBatch();
+        } finally {
+            BATCH_TIME.recordSince(start);
+            if (inFlight != null) inFlight.release();
+        }
+    }
+
+    // === VERIFY (post-step) ===
+    // Migrates, then diffs the written tables against a reference copy (e.g. the same tables on the
+    // source server) with TableDiff. LAST_UPDATED and GUID are regenerated on every run, so not compared.
+    // The expected refs must use their own connection, not dst: TableDiff reads both sides at once.
+    public static List<TableDiff.Report> migrateAndVerify(
+            List<Map<String,Object>> sourceRows, Connection dst,
+            String cfgTable, String dbpTable,
+            TableDiff.TableRef expectedCfg, TableDiff.TableRef expectedDbp
+    ) throws Exception {
+        if (expectedCfg.connection() == dst || expectedDbp.connection() == dst) {
+            throw new IllegalArgumentException("Expected tables must be read through another connection than dst");
+        }
+        migrate(sourceRows, dst, cfgTable, dbpTable);
+        TableDiff.Options options = TableDiff.Options.defaults().ignoring("LAST_UPDATED", "GUID");
+        return List.of(
+                TableDiff.compare(expectedCfg, TableDiff.TableRef.of(dst, cfgTable), options),
+                TableDiff.compare(expectedDbp, TableDiff.TableRef.of(dst, dbpTable), options));
+    }
+
+    // === PARALLEL ENTRYPOINT ===
+    // Splits the rows by AIT_NO (an AIT never spans two partitions) and migrates the partitions
+    // concurrently, each on its own pooled connection and in its own transaction. A failed partition
+    // is retried on a fresh connection and reported on its own; the other partitions still commit.
+    public record ParallelOptions(int threads, int aitsPerPartition, int batchSize,
+                                  int maxInFlightBatches, int maxAttempts, long retryBackoffMillis) {
+        public static ParallelOptions defaults() { return new ParallelOptions(8, 200, 1000, 4, 3, 2000); }
+    }
+
+    public record PartitionResult(int partition, List<Object> aits, int rows, int attempts, Exception failure) {
+        public boolean succeeded() { return failure == null; }
+    }
+
+    public static List<PartitionResult> migrateParallel(
+            List<Map<String,Object>> sourceRows, DataSource dst,
+            String cfgTable, String dbpTable,
+            ParallelOptions options
+    ) throws InterruptedException {
+        if (sourceRows == null || sourceRows.isEmpty()) return List.of();
+
+        Map<Object, List<Map<String,Object>>> byAit = new LinkedHashMap<>();
+        for (Map<String,Object> row : sourceRows) byAit.computeIfAbsent(row.get("AIT_NO"), k -> new ArrayList<>()).add(row);
+        List<List<Object>> partitions = chunks(new ArrayList<>(byAit.keySet()), options.aitsPerPartition());
+
+        long start = System.nanoTime();
+        Semaphore inFlight = new Semaphore(options.maxInFlightBatches());
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(options.threads(), partitions.size()));
+        try {
+            List<Future<PartitionResult>> futures = new ArrayList<>();
+            for (int p = 0; p < partitions.size(); p++) {
+                int partition = p;
+                List<Object> aits = partitions.get(p);
+                List<Map<String,Object>> partitionRows = new ArrayList<>();
+                for (Object ait : aits) partitionRows.addAll(byAit.get(ait));
+                List<Object[]> rows = toPositional(partitionRows);
+                futures.add(pool.submit(() -> migratePartition(partition, aits, rows, dst, cfgTable, dbpTable, options, inFlight)));
+            }
+            List<PartitionResult> results = new ArrayList<>(futures.size());
+            for (Future<PartitionResult> f : futures) {
+                try {
+                    results.add(f.get());
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Partition task failed unexpectedly", e.getCause());
+                }
+            }
+            completed(BATCH_RATE, results.stream().filter(PartitionResult::succeeded).mapToLong(PartitionResult::rows).sum(), start);
+            return results;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static PartitionResult migratePartition(int partition, List<Object> aits, List<Object[]> rows,
+                                                    DataSource dst, String cfgTable, String dbpTable,
+                                                    ParallelOptions options, Semaphore inFlight) throws InterruptedException {
+        Exception failure = null;
+        int attempt = 0;
+        while (attempt < options.maxAttempts()) {
+            attempt++;
+            try (Connection c = dst.getConnection()) {
+                migrate(SOURCE_COLUMNS, rows, c, cfgTable, dbpTable, options.batchSize(), inFlight); // rolls back on failure
+                return new PartitionResult(partition, aits, rows.size(), attempt, null);
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Exception e) {
+                failure = e;
+                if (attempt < options.maxAttempts()) Thread.sleep(options.retryBackoffMillis() * attempt);
+            }
+        }
+        return new PartitionResult(partition, aits, rows.size(), attempt, failure);
+    }
+
+    // === BULK ENTRYPOINT ===
+    // Loads the mapped rows into staging tables with chunked multi-row VALUES inserts, then applies
+    // one set-based DELETE and one INSERT ... SELECT per target table. No statement ever carries more
+    // than MAX_IN_PARAMS parameters, however many AITs are migrated.
+    //
+    // The staging tables must already exist with the target's columns (including LAST_UPDATED); they
+    // default to <table>_STAGE and are emptied before and after use. They are shared, so one bulk run
+    // per target at a time. Plain ANSI SQL throughout, so H2 in MSSQL mode runs the same statements.
+    public static void migrateBulk(
+            List<Map<String,Object>> sourceRows, Connection dst,
+            String cfgTable, String dbpTable
+    ) throws Exception {
+        if (sourceRows == null || sourceRows.isEmpty()) return;
+        migrateBulk(SOURCE_COLUMNS, toPositional(sourceRows), dst, cfgTable, dbpTable, cfgTable + "_STAGE", dbpTable + "_STAGE");
+    }
+
+    public static void migrateBulk(
+            String[] sourceColumns, List<Object[]> sourceRows, Connection dst,
+            String cfgTable, String dbpTable,
+            String cfgStage, String dbpStage
+    ) throws Exception {
+        if (sourceRows == null || sourceRows.isEmpty()) return;
+
+        BindingPlan cfgPlan = BindingPlan.compile(CFG_COLUMNS, sourceColumns, columnTypes(dst, cfgStage));
+        BindingPlan dbpPlan = BindingPlan.compile(DBP_COLUMNS, sourceColumns, columnTypes(dst, dbpStage));
+        int aitPos = position(sourceColumns, "AIT_NO");
+        if (aitPos < 0) throw new IllegalArgumentException("Source rows have no AIT_NO column");
+
+        // AIT_CONFIG: once per AIT
+        Set<Object> seen = new HashSet<>();
+        List<Object[]> cfgRows = new ArrayList<>();
+        for (Object[] row : sourceRows) if (seen.add(row[aitPos])) cfgRows.add(row);
+
+        long start = System.nanoTime();
+        dst.setAutoCommit(false);
+        try (Statement st = dst.createStatement()) {
+            Timestamp now = new Timestamp(System.currentTimeMillis());
+            st.executeUpdate("DELETE FROM " + cfgStage);
+            st.executeUpdate("DELETE FROM " + dbpStage);
+            stage(dst, cfgStage, destColumns(CFG_COLUMNS), cfgPlan, cfgRows, now);
+            stage(dst, dbpStage, destColumns(DBP_COLUMNS), dbpPlan, sourceRows, now);
+
+            applyFromStage(st, cfgTable, cfgStage, destColumns(CFG_COLUMNS));
+            applyFromStage(st, dbpTable, dbpStage, destColumns(DBP_COLUMNS));
+
+            st.executeUpdate("DELETE FROM " + cfgStage);
+            st.executeUpdate("DELETE FROM " + dbpStage);
+            dst.commit();
+            BULK_ROWS.add(sourceRows.size());
+            completed(BULK_RATE, sourceRows.size(), start);
+        } catch (Exception e) {
+            dst.rollback();
+            throw e;
+        } finally {
+            dst.setAutoCommit(true);
+        }
+    }
+
+    // INSERT INTO stage (...) VALUES (...),(...),... sized to stay under the parameter / row caps
+    private static void stage(Connection c, String stage, List<String> cols, BindingPlan plan,
+                              List<Object[]> rows, Timestamp now) throws SQLException {
+        int width = cols.size() + 1; // + LAST_UPDATED
+        int perStatement = Math.max(1, Math.min(MAX_VALUES_ROWS, MAX_IN_PARAMS / width));
+        String tuple = "(" + String.join(",", Collections.nCopies(width, "?")) + ")";
+        String head = "INSERT INTO " + stage + " (" + String.join(",", cols) + ",LAST_UPDATED) VALUES ";
+
+        List<List<Object[]>> chunks = chunks(rows, perStatement);
+        List<Object[]> tail = chunks.get(chunks.size()-1).size() < perStatement ? chunks.remove(chunks.size()-1) : null;
+        if (!chunks.isEmpty()) {
+            try (PreparedStatement ps = c.prepareStatement(head + String.join(",", Collections.nCopies(perStatement, tuple)))) {
+                for (List<Object[]> chunk : chunks) {
+                    bindValues(ps, plan, chunk, now);
+                    ps.addBatch();
                 }
-                psCfg.executeBatch();
-                psDbp.executeBatch();
+                ps.executeBatch();
+            }
+        }
+        if (tail != null) {
+            try (PreparedStatement ps = c.prepareStatement(head + String.join(",", Collections.nCopies(tail.size(), tuple)))) {
+                bindValues(ps, plan, tail, now);
+                ps.executeUpdate();
             }
+        }
+    }
+
+    private static void bindValues(PreparedStatement ps, BindingPlan plan, List<Object[]> rows, Timestamp now) throws SQLException {
+        int i = 0;
+        for (Object[] row : rows) {
+            i = plan.bind(ps, row, i);
+            ps.setTimestamp(++i, now);
+        }
+    }
+
+    private static void applyFromStage(Statement st, String table, String stage, List<String> cols) throws SQLException {
+        String colList = String.join(",", cols) + ",LAST_UPDATED";
+        st.executeUpdate("DELETE FROM " + table + " WHERE AIT_NO IN (SELECT AIT_NO FROM " + stage + ")");
+        st.executeUpdate("INSERT INTO " + table + " (" + colList + ") SELECT " + colList + " FROM " + stage);
+    }
+
+    // === DIFFERENTIAL ENTRYPOINT ===
+    // Fingerprints every mapped row and touches only rows that actually changed. Existing GUIDs are
+    // kept (GUID is never compared or updated); only brand-new AIT_DBPROP rows get a fresh one.
+    private static final List<String> CFG_KEY = List.of("AIT_NO");
+    private static final List<String> DBP_KEY = List.of("AIT_NO", "ID");
+    private static final Set<String> NOT_COMPARED = Set.of("GUID");
+
+    public record DiffResult(int inserted, int updated, int deleted, int unchanged) {
+        DiffResult plus(DiffResult o) {
+            return new DiffResult(inserted+o.inserted, updated+o.updated, deleted+o.deleted, unchanged+o.unchanged);
+        }
+    }
+
+    public static DiffResult migrateDifferential(
+            List<Map<String,Object>> sourceRows, Connection dst,
+            String cfgTable, String dbpTable
+    ) throws Exception {
+        if (sourceRows == null || sourceRows.isEmpty()) return new DiffResult(0, 0, 0, 0);
+
+        LinkedHashMap<String, Function<Map<String,Object>, Object>> cfgMap = buildCfgMap();
+        LinkedHashMap<String, Function<Map<String,Object>, Object>> dbpMap = buildDbpMap();
+
+        // Desired state keyed like the target: one AIT_CONFIG row per AIT, one AIT_DBPROP row per (AIT, ID)
+        Map<List<String>, Map<String,Object>> cfgRows = new LinkedHashMap<>();
+        Map<List<String>, Map<String,Object>> dbpRows = new LinkedHashMap<>();
+        for (Map<String,Object> row : sourceRows) {
+            cfgRows.putIfAbsent(keyOf(row, CFG_KEY, cfgMap), row);
+            dbpRows.put(keyOf(row, DBP_KEY, dbpMap), row);
+        }
+        Set<Object> aits = sourceRows.stream().map(r -> r.get("AIT_NO")).collect(Collectors.toSet());
+
+        long start = System.nanoTime();
+        dst.setAutoCommit(false);
+        try {
+            Timestamp now = new Timestamp(System.currentTimeMillis());
+            DiffResult result = syncTable(dst, cfgTable, CFG_KEY, CFG_COLUMNS, cfgRows, aits, now)
+                    .plus(syncTable(dst, dbpTable, DBP_KEY, DBP_COLUMNS, dbpRows, aits, now));
             dst.commit();
+            DIFF_ROWS.add(sourceRows.size());
+            completed(DIFF_RATE, sourceRows.size(), start);
+            return result;
         } catch (Exception e) {
             dst.rollback();
             throw e;
@@ -59,97 +359,543 @@ public class AitMigrator {
         }
     }
 
+    private static DiffResult syncTable(Connection c, String table, List<String> keyCols,
+                                        List<Col> cols,
+                                        Map<List<String>, Map<String,Object>> desired,
+                                        Set<Object> aits, Timestamp now) throws Exception {
+        LinkedHashMap<String, Function<Map<String,Object>, Object>> mapping = toFunctionMap(cols);
+        Map<String,Integer> targetTypes = columnTypes(c, table);
+        Map<String,Integer> nullTypes = new HashMap<>();
+        for (Col col : cols) nullTypes.put(col.dest(), col.nullType(targetTypes));
+        List<String> compared = mapping.keySet().stream()
+                .filter(col -> !keyCols.contains(col) && !NOT_COMPARED.contains(col)).toList();
+
+        // 1) Fingerprint what is there now (only the incoming AITs)
+        Map<List<String>, byte[]> existing = new HashMap<>();
+        String select = "SELECT " + String.join(",", keyCols) + "," + String.join(",", compared)
+                + " FROM " + table + " WHERE AIT_NO IN (";
+        for (List<Object> chunk : chunks(new ArrayList<>(aits), MAX_IN_PARAMS)) {
+            try (PreparedStatement ps = c.prepareStatement(select + String.join(",", Collections.nCopies(chunk.size(), "?")) + ")")) {
+                int i = 1; for (Object v : chunk) ps.setObject(i++, v);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        List<String> key = new ArrayList<>(keyCols.size());
+                        for (int k = 1; k <= keyCols.size(); k++) key.add(norm(rs.getObject(k)));
+                        List<Object> values = new ArrayList<>(compared.size());
+                        for (int k = 1; k <= compared.size(); k++) values.add(rs.getObject(keyCols.size() + k));
+                        existing.put(key, fingerprint(values));
+                    }
+                }
+            }
+        }
+
+        // 2) Compare with the mapped source rows
+        List<Map<String,Object>> inserts = new ArrayList<>(), updates = new ArrayList<>();
+        int unchanged = 0;
+        for (Map.Entry<List<String>, Map<String,Object>> e : desired.entrySet()) {
+            byte[] current = existing.remove(e.getKey());
+            if (current == null) {
+                inserts.add(e.getValue());
+            } else {
+                List<Object> values = new ArrayList<>(compared.size());
+                for (String col : compared) values.add(mapping.get(col).apply(e.getValue()));
+                if (Arrays.equals(current, fingerprint(values))) unchanged++;
+                else updates.add(e.getValue());
+            }
+        }
+        // whatever is left exists in the target but no longer in the source
+
+        // 3) Apply only the differences, as batched keyed statements
+        if (!inserts.isEmpty()) {
+            try (PreparedStatement ps = c.prepareStatement(buildInsertSql(table, mapping.keySet(), "LAST_UPDATED"))) {
+                for (Map<String,Object> row : inserts) {
+                    bind(ps, row, cols, targetTypes);
+                    ps.setTimestamp(mapping.size()+1, now);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+        }
+        if (!updates.isEmpty()) {
+            String sql = "UPDATE " + table + " SET " + compared.stream().map(col -> col + "=?").collect(Collectors.joining(","))
+                    + ",LAST_UPDATED=? WHERE " + keyCols.stream().map(col -> col + "=?").collect(Collectors.joining(" AND "));
+            try (PreparedStatement ps = c.prepareStatement(sql)) {
+                for (Map<String,Object> row : updates) {
+                    int i = 1;
+                    for (String col : compared) setValue(ps, i++, mapping.get(col).apply(row), nullTypes.get(col));
+                    ps.setTimestamp(i++, now);
+                    for (String col : keyCols) setValue(ps, i++, mapping.get(col).apply(row), nullTypes.get(col));
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+        }
+        if (!existing.isEmpty()) {
+            String sql = "DELETE FROM " + table + " WHERE " + keyCols.stream().map(col -> col + "=?").collect(Collectors.joining(" AND "));
+            try (PreparedStatement ps = c.prepareStatement(sql)) {
+                for (List<String> key : existing.keySet()) {
+                    int i = 1; for (String v : key) ps.setString(i++, v);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+        }
+        return new DiffResult(inserts.size(), updates.size(), existing.size(), unchanged);
+    }
+
+    private static List<String> keyOf(Map<String,Object> row, List<String> keyCols,
+                                      LinkedHashMap<String, Function<Map<String,Object>, Object>> mapping) {
+        List<String> key = new ArrayList<>(keyCols.size());
+        for (String col : keyCols) key.add(norm(mapping.get(col).apply(row)));
+        return key;
+    }
+
+    // Same value → same text whether it came from the source coercions or from the target driver
+    private static String norm(Object v) {
+        if (v == null) return null;
+        if (v instanceof Boolean b) return b ? "1" : "0";
+        if (v instanceof Number n) return new BigDecimal(n.toString()).stripTrailingZeros().toPlainString();
+        return String.valueOf(v);
+    }
+
+    private static byte[] fingerprint(List<Object> values) throws Exception {
+        MessageDigest md = MessageDigest.getInstance("SHA-256");
+        for (Object v : values) {
+            String s = norm(v);
+            if (s == null) { md.update((byte) 0); continue; }
+            byte[] b = s.getBytes(StandardCharsets.UTF_8);
+            md.update((byte) 1);
+            md.update(new byte[]{(byte)(b.length >>> 24), (byte)(b.length >>> 16), (byte)(b.length >>> 8), (byte) b.length});
+            md.update(b);
+        }
+        return md.digest();
+    }
+
+    // === STREAMING ENTRYPOINT ===
+    // Source must be ordered by AIT_NO: each AIT's rows are contiguous, and commits / checkpoints
+    // happen on AIT boundaries. Memory stays flat: only the open JDBC batches are held.
+    // aitTextOrder is the order the source query sorts text AITs in; the default (String.compareTo)
+    // matches ORDER BY AIT_NO COLLATE Latin1_General_BIN2. Numeric AITs always compare as numbers.
+    public record StreamOptions(int batchSize, int aitsPerCommit, Comparator<String> aitTextOrder) {
+        public StreamOptions(int batchSize, int aitsPerCommit) { this(batchSize, aitsPerCommit, Comparator.naturalOrder()); }
+        public static StreamOptions defaults() { return new StreamOptions(1_000, 50); }
+    }
+
+    public static void migrateStreaming(
+            ResultSet source, Connection dst,
+            String cfgTable, String dbpTable,
+            StreamOptions options, Checkpoint checkpoint
+    ) throws Exception {
+        source.setFetchSize(options.batchSize());
+        migrateStreaming(resultSetRows(source), dst, cfgTable, dbpTable, options, checkpoint);
+    }
+
+    public static void migrateStreaming(
+            Iterator<Map<String,Object>> source, Connection dst,
+            String cfgTable, String dbpTable,
+            StreamOptions options, Checkpoint checkpoint
+    ) throws Exception {
+        String resumeAfter = checkpoint.lastCommittedAit();
+        Comparator<String> textOrder = options.aitTextOrder();
+        Object previousAit = null, currentAit = null;
+        Map<String,Integer> cfgTypes = columnTypes(dst, cfgTable), dbpTypes = columnTypes(dst, dbpTable);
+        int aitsInTxn = 0, rowsInBatch = 0;
+        long start = System.nanoTime(), rowsInTxn = 0, rowsTotal = 0;
+
+        dst.setAutoCommit(false);
+        try (PreparedStatement psDelCfg = dst.prepareStatement("DELETE FROM " + cfgTable + " WHERE AIT_NO = ?");
+             PreparedStatement psDelDbp = dst.prepareStatement("DELETE FROM " + dbpTable + " WHERE AIT_NO = ?");
+             PreparedStatement psCfg = dst.prepareStatement(buildInsertSql(cfgTable, destColumns(CFG_COLUMNS), "LAST_UPDATED"));
+             PreparedStatement psDbp = dst.prepareStatement(buildInsertSql(dbpTable, destColumns(DBP_COLUMNS), "LAST_UPDATED"))) {
+
+            Timestamp now = new Timestamp(System.currentTimeMillis());
+            while (source.hasNext()) {
+                Map<String,Object> row = source.next();
+                Object ait = row.get("AIT_NO");
+                if (!Objects.equals(ait, previousAit)) {
+                    // Strictly ascending AITs: a repeated AIT would re-run its DELETE and wipe the rows just
+                    // written, and an out-of-order one would make the resume below skip uncommitted rows
+                    if (previousAit != null && compareAit(ait, String.valueOf(previousAit), textOrder) <= 0) {
+                        throw new IllegalStateException("Source is not ordered by AIT_NO: " + ait + " after " + previousAit);
+                    }
+                    previousAit = ait;
+                }
+                if (resumeAfter != null && compareAit(ait, resumeAfter, textOrder) <= 0) continue; // committed before the failure
+
+                if (!Objects.equals(ait, currentAit)) {
+                    // AIT boundary: commit the finished group, then wipe + write the new AIT
+                    if (currentAit != null && aitsInTxn >= options.aitsPerCommit()) {
+                        flush(psDelCfg, psDelDbp, psCfg, psDbp);
+                        rowsInBatch = 0;
+                        dst.commit();
+                        STREAM_ROWS.add(rowsInTxn);
+                        rowsTotal += rowsInTxn;
+                        rowsInTxn = 0;
+                        checkpoint.save(String.valueOf(currentAit));
+                        aitsInTxn = 0;
+                    }
+                    currentAit = ait;
+                    aitsInTxn++;
+
+                    psDelCfg.setObject(1, ait); psDelCfg.addBatch();
+                    psDelDbp.setObject(1, ait); psDelDbp.addBatch();
+                    // AIT_CONFIG: once per AIT
+                    bind(psCfg, row, CFG_COLUMNS, cfgTypes);
+                    psCfg.setTimestamp(CFG_COLUMNS.size()+1, now);
+                    psCfg.addBatch();
+                }
+                // AIT_DBPROP: every row
+                bind(psDbp, row, DBP_COLUMNS, dbpTypes);
+                psDbp.setTimestamp(DBP_COLUMNS.size()+1, now);
+                psDbp.addBatch();
+                rowsInTxn++;
+
+                if (++rowsInBatch >= options.batchSize()) {
+                    flush(psDelCfg, psDelDbp, psCfg, psDbp);
+                    rowsInBatch = 0;
+                }
+            }
+            flush(psDelCfg, psDelDbp, psCfg, psDbp);
+            dst.commit();
+            STREAM_ROWS.add(rowsInTxn);
+            completed(STREAM_RATE, rowsTotal + rowsInTxn, start);
+            checkpoint.clear(); // full run done; the next run starts from the beginning
+        } catch (Exception e) {
+            dst.rollback();
+            throw e;
+        } finally {
+            dst.setAutoCommit(true);
+        }
+    }
+
+    // Deletes run first so an AIT's old rows are gone before its new rows land in the same flush
+    private static void flush(PreparedStatement psDelCfg, PreparedStatement psDelDbp,
+                              PreparedStatement psCfg, PreparedStatement psDbp) throws SQLException {
+        long start = System.nanoTime();
+        psDelCfg.executeBatch();
+        psDelDbp.executeBatch();
+        psCfg.executeBatch();
+        psDbp.executeBatch();
+        STREAM_BATCH_TIME.recordSince(start);
+    }
+
+    // A numeric AIT_NO column (the driver returns a Number) compares as numbers; a text column in the
+    // source query's string order, even when the text looks numeric ("10" sorts before "2")
+    private static int compareAit(Object ait, String other, Comparator<String> textOrder) {
+        if (ait instanceof Number n) {
+            return new BigDecimal(n.toString()).compareTo(new BigDecimal(other.trim()));
+        }
+        return textOrder.compare(String.valueOf(ait), other);
+    }
+
+    private static Iterator<Map<String,Object>> resultSetRows(ResultSet rs) throws SQLException {
+        ResultSetMetaData md = rs.getMetaData();
+        String[] labels = new String[md.getColumnCount()];
+        for (int i = 0; i < labels.length; i++) labels[i] = md.getColumnLabel(i+1);
+        return new Iterator<>() {
+            private Boolean hasNext;
+            @Override public boolean hasNext() {
+                if (hasNext == null) {
+                    try { hasNext = rs.next(); } catch (SQLException e) { throw new IllegalStateException(e); }
+                }
+                return hasNext;
+            }
+            @Override public Map<String,Object> next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                hasNext = null;
+                // Case-insensitive like SQL Server identifiers: "SDD_Active" must find SDD_ACTIVE / sdd_active
+                Map<String,Object> row = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+                try {
+                    for (int i = 0; i < labels.length; i++) row.put(labels[i], rs.getObject(i+1));
+                } catch (SQLException e) { throw new IllegalStateException(e); }
+                return row;
+            }
+        };
+    }
+
+    // === METRICS (Metrics.global(): /metrics and JMX) ===
+    // rows_total counts committed source rows; rows_per_second is the throughput of the last finished run
+    private static final Metrics.Counter BATCH_ROWS = rowsCounter("batch"), BULK_ROWS = rowsCounter("bulk"),
+            STREAM_ROWS = rowsCounter("streaming"), DIFF_ROWS = rowsCounter("differential");
+    private static final Metrics.Gauge BATCH_RATE = rateGauge("batch"), BULK_RATE = rateGauge("bulk"),
+            STREAM_RATE = rateGauge("streaming"), DIFF_RATE = rateGauge("differential");
+    private static final Metrics.Histogram BATCH_TIME = batchHistogram("batch"), STREAM_BATCH_TIME = batchHistogram("streaming");
+
+    private static Metrics.Counter rowsCounter(String mode) {
+        return Metrics.global().counter("ait_migration_rows_total", "Source rows committed by AitMigrator", "mode", mode);
+    }
+    private static Metrics.Gauge rateGauge(String mode) {
+        return Metrics.global().gauge("ait_migration_rows_per_second", "Rows/sec of the last completed migration", "mode", mode);
+    }
+    private static Metrics.Histogram batchHistogram(String mode) {
+        return Metrics.global().histogram("ait_migration_batch_seconds", "executeBatch round trip for one batch of rows", "mode", mode);
+    }
+    private static void completed(Metrics.Gauge rate, long rows, long startNanos) {
+        rate.set(rows * 1_000_000_000L / Math.max(1, System.nanoTime() - startNanos));
+    }
+
+    // === CHECKPOINT (resume after failure) ===
+    public interface Checkpoint {
+        String lastCommittedAit();          // null = start from the beginning
+        void save(String ait) throws IOException;
+        void clear() throws IOException;
+    }
+
+    /** Keeps the last committed AIT_NO in a small file, replaced atomically on every commit. */
+    public static final class FileCheckpoint implements Checkpoint {
+        private final Path file;
+        public FileCheckpoint(Path file) { this.file = file; }
+
+        @Override public String lastCommittedAit() {
+            try {
+                return Files.exists(file) ? Files.readString(file, StandardCharsets.UTF_8).trim() : null;
+            } catch (IOException e) { throw new IllegalStateException("Cannot read checkpoint " + file, e); }
+        }
+
+        @Override public void save(String ait) throws IOException {
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.writeString(tmp, ait, StandardCharsets.UTF_8);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        @Override public void clear() throws IOException { Files.deleteIfExists(file); }
+    }
+
     // === DEST → VALUE mappings ===
-    private static LinkedHashMap<String, Function<Map<String,Object>, Object>> buildCfgMap() {
-        LinkedHashMap<String, Function<Map<String,Object>, Object>> m = new LinkedHashMap<>();
+    // One declaration per destination column. The Function maps and the compiled BindingPlan are
+    // both derived from these lists, so the two paths can never disagree on a column.
+    private static final List<Col> CFG_COLUMNS = List.of(
         // present in source
-        m.put("AIT_NO",            r -> r.get("AIT_NO"));
-        m.put("FUNNEL_SDD",        r -> asInt(r.get("FUNNEL_SDD")));
-        m.put("AIML_SDD",          r -> asInt(r.get("AIML_SDD")));
-        m.put("IDW_SDD",           r -> asInt(r.get("IDW_SDD")));
-        m.put("IEDPS_SDD",         r -> asInt(r.get("IEDPS_SDD")));
-        m.put("AIML_VALIDATION",   r -> asBool(r.get("AIML_VALIDATION")));
-        m.put("FULL_SCAN",         r -> asBool(r.get("FULL_SCAN"))); // if missing, helper returns null -> default below
-        m.put("TOPIC_NAME",        r -> trim(r.get("TOPIC_NAME")));
-        m.put("AIT_CADENCE",       r -> r.get("AIT_CADENCE"));
-        m.put("REPORT_TOPIC_NAME", r -> r.get("REPORT_TOPIC_NAME"));
-        m.put("FFT_DESTINATION",   r -> r.get("FFT_DESTINATION"));
-        m.put("PROFILE",           r -> r.get("PROFILE"));
-        m.put("LOB",               r -> r.get("LOB"));
-        m.put("LAST_UPDATED_USER", r -> r.getOrDefault("LAST_UPDATED_USER","system"));
+        Col.raw("AIT_NO"),
+        Col.of("FUNNEL_SDD",        Kind.INT),
+        Col.of("AIML_SDD",          Kind.INT),
+        Col.of("IDW_SDD",           Kind.INT),
+        Col.of("IEDPS_SDD",         Kind.INT),
+        Col.of("AIML_VALIDATION",   Kind.BOOL),
+        Col.of("FULL_SCAN",         Kind.BOOL),   // if missing, helper returns null
+        Col.of("TOPIC_NAME",        Kind.TRIM),
+        Col.of("AIT_CADENCE",       Kind.STRING),
+        Col.of("REPORT_TOPIC_NAME", Kind.STRING),
+        Col.of("FFT_DESTINATION",   Kind.STRING),
+        Col.of("PROFILE",           Kind.STRING),
+        Col.of("LOB",               Kind.STRING),
+        Col.orElse("LAST_UPDATED_USER", "system"),
 
         // not in source → defaults
-        m.put("ESPIAL_SDD",        r -> 0);
-        m.put("FUNNEL_FFT",        r -> 0);
-        m.put("IDW_FFT",           r -> 0);
-        m.put("ESPIAL_FFT",        r -> 0);
-        m.put("IS_ESPIAL",         r -> 0);      // or false
-        m.put("IS_ACTIVE",         r -> 1);      // default active (bit/int)
+        Col.constant("ESPIAL_SDD",  0),
+        Col.constant("FUNNEL_FFT",  0),
+        Col.constant("IDW_FFT",     0),
+        Col.constant("ESPIAL_FFT",  0),
+        Col.constant("IS_ESPIAL",   0),           // or false
+        Col.constant("IS_ACTIVE",   1)            // default active (bit/int)
         // note: LAST_UPDATED is appended automatically
-        return m;
-    }
+    );
 
-    private static LinkedHashMap<String, Function<Map<String,Object>, Object>> buildDbpMap() {
-        LinkedHashMap<String, Function<Map<String,Object>, Object>> m = new LinkedHashMap<>();
+    private static final List<Col> DBP_COLUMNS = List.of(
         // mostly present in source
-        m.put("AIT_NO",            r -> r.get("AIT_NO"));
-        m.put("ID",                r -> r.get("ID"));
-        m.put("PROFILE",           r -> r.get("PROFILE"));
-        m.put("DB_TYPE",           r -> r.get("DB_TYPE"));
-        m.put("MACHINE_NAME",      r -> r.get("MACHINE_NAME"));
-        m.put("DBA_NAME",          r -> r.get("DBA_NAME"));
-        m.put("SCHEMA_NAME",       r -> r.get("SCHEMA_NAME"));
-        m.put("USER_ID",           r -> r.get("USER_ID"));
-        m.put("PASS_WORD",         r -> r.get("PASS_WORD"));
-        m.put("TOPIC_NAME",        r -> trim(r.get("TOPIC_NAME")));
-        m.put("JDBC_URL",          r -> r.get("JDBC_URL"));
-        m.put("NO_OF_CONNECTION",  r -> asInt(r.get("NO_OF_CONNECTION")));
-        m.put("EMAIL_ID",          r -> r.get("EMAIL_ID"));
-        m.put("SDD_Active",        r -> r.get("SDD_Active"));
-        m.put("AIML_IS_ACTIVE",    r -> asBool(r.get("AIML_IS_ACTIVE")));
-        m.put("TABLE_LIST",        r -> r.get("TABLE_LIST"));
-        m.put("EXEC_STATUS",       r -> r.get("EXEC_STATUS"));
-        m.put("AIT_CADENCE",       r -> r.get("AIT_CADENCE"));
-        m.put("IDW_SDD",           r -> asInt(r.get("IDW_SDD")));
-        m.put("IDW_UDD",           r -> asInt(r.get("IDW_UDD")));
-        m.put("IEDPS_SDD",         r -> asInt(r.get("IEDPS_SDD")));
-        m.put("REPORT_TOPIC_NAME", r -> r.get("REPORT_TOPIC_NAME"));
-        m.put("FUNNEL_UDD",        r -> asInt(r.get("FUNNEL_UDD")));
-        m.put("FUNNEL_SDD",        r -> asInt(r.get("FUNNEL_SDD")));
-        m.put("AIML_SDD",          r -> asInt(r.get("AIML_SDD")));
-        m.put("AIML_UDD",          r -> asInt(r.get("AIML_UDD")));
-        m.put("FUNNEL_DESTINATION",r -> r.get("FUNNEL_DESTINATION"));
-        m.put("FUNNEL_DISCOVERY",  r -> asBool(r.get("FUNNEL_DISCOVERY")));
-        m.put("AIML_DISCOVERY",    r -> asBool(r.get("AIML_DISCOVERY")));
-        m.put("IDW_DISCOVERY",     r -> asBool(r.get("IDW_DISCOVERY")));
-        m.put("IEDPS_DISCOVERY",   r -> asBool(r.get("IEDPS_DISCOVERY")));
-        m.put("AIML_VALIDATION",   r -> asBool(r.get("AIML_VALIDATION")));
-        m.put("FFT_DESTINATION",   r -> r.get("FFT_DESTINATION"));
-        m.put("AIT_NUM",           r -> r.get("AIT_NUM"));
-        m.put("JDBC_CON_STR",      r -> r.get("JDBC_CON_STR"));
-        m.put("LOB",               r -> r.get("LOB"));
-        m.put("ENVIRONMENT",       r -> r.get("ENVIRONMENT"));
-        m.put("MNPI_DISCOVERY",    r -> asBool(r.get("MNPI_DISCOVERY")));
-        m.put("NFQI_DISCOVERY",    r -> asBool(r.get("NFQI_DISCOVERY")));
+        Col.raw("AIT_NO"),
+        Col.raw("ID"),
+        Col.of("PROFILE",           Kind.STRING),
+        Col.of("DB_TYPE",           Kind.STRING),
+        Col.of("MACHINE_NAME",      Kind.STRING),
+        Col.of("DBA_NAME",          Kind.STRING),
+        Col.of("SCHEMA_NAME",       Kind.STRING),
+        Col.of("USER_ID",           Kind.STRING),
+        Col.of("PASS_WORD",         Kind.STRING),
+        Col.of("TOPIC_NAME",        Kind.TRIM),
+        Col.of("JDBC_URL",          Kind.STRING),
+        Col.of("NO_OF_CONNECTION",  Kind.INT),
+        Col.of("EMAIL_ID",          Kind.STRING),
+        Col.raw("SDD_Active"),
+        Col.of("AIML_IS_ACTIVE",    Kind.BOOL),
+        Col.of("TABLE_LIST",        Kind.STRING),
+        Col.of("EXEC_STATUS",       Kind.STRING),
+        Col.of("AIT_CADENCE",       Kind.STRING),
+        Col.of("IDW_SDD",           Kind.INT),
+        Col.of("IDW_UDD",           Kind.INT),
+        Col.of("IEDPS_SDD",         Kind.INT),
+        Col.of("REPORT_TOPIC_NAME", Kind.STRING),
+        Col.of("FUNNEL_UDD",        Kind.INT),
+        Col.of("FUNNEL_SDD",        Kind.INT),
+        Col.of("AIML_SDD",          Kind.INT),
+        Col.of("AIML_UDD",          Kind.INT),
+        Col.of("FUNNEL_DESTINATION",Kind.STRING),
+        Col.of("FUNNEL_DISCOVERY",  Kind.BOOL),
+        Col.of("AIML_DISCOVERY",    Kind.BOOL),
+        Col.of("IDW_DISCOVERY",     Kind.BOOL),
+        Col.of("IEDPS_DISCOVERY",   Kind.BOOL),
+        Col.of("AIML_VALIDATION",   Kind.BOOL),
+        Col.of("FFT_DESTINATION",   Kind.STRING),
+        Col.raw("AIT_NUM"),
+        Col.of("JDBC_CON_STR",      Kind.STRING),
+        Col.of("LOB",               Kind.STRING),
+        Col.of("ENVIRONMENT",       Kind.STRING),
+        Col.of("MNPI_DISCOVERY",    Kind.BOOL),
+        Col.of("NFQI_DISCOVERY",    Kind.BOOL),
 
         // not in source → defaults
-        m.put("FULL_SCAN",         r -> 0);
-        m.put("IS_ACTIVE",         r -> 1);
-        m.put("ONPREM_ID",         r -> null);
-        m.put("GUID",              r -> java.util.UUID.randomUUID().toString());
-        m.put("COLLECTION_ID",     r -> null);
+        Col.constant("FULL_SCAN",   0),
+        Col.constant("IS_ACTIVE",   1),
+        Col.constant("ONPREM_ID",   null),
+        Col.guid("GUID"),
+        Col.constant("COLLECTION_ID", null)
         // LAST_UPDATED appended automatically
+    );
+
+    // Every source column either table reads; the layout Map rows are flattened into
+    private static final String[] SOURCE_COLUMNS = java.util.stream.Stream.concat(CFG_COLUMNS.stream(), DBP_COLUMNS.stream())
+            .map(Col::source).filter(Objects::nonNull).distinct().toArray(String[]::new);
+
+    // Layouts for harnesses that build matching source rows and target tables (benchmarks/)
+    static String[] sourceColumns() { return SOURCE_COLUMNS.clone(); }
+    static List<Col> cfgColumns() { return CFG_COLUMNS; }
+    static List<Col> dbpColumns() { return DBP_COLUMNS; }
+
+    private static LinkedHashMap<String, Function<Map<String,Object>, Object>> buildCfgMap() { return toFunctionMap(CFG_COLUMNS); }
+    private static LinkedHashMap<String, Function<Map<String,Object>, Object>> buildDbpMap() { return toFunctionMap(DBP_COLUMNS); }
+
+    private static LinkedHashMap<String, Function<Map<String,Object>, Object>> toFunctionMap(List<Col> cols) {
+        LinkedHashMap<String, Function<Map<String,Object>, Object>> m = new LinkedHashMap<>();
+        for (Col col : cols) m.put(col.dest(), r -> col.value(col.source() == null ? null : r.get(col.source())));
         return m;
     }
 
+    enum Kind {
+        RAW(Types.VARCHAR), STRING(Types.VARCHAR), TRIM(Types.VARCHAR), INT(Types.INTEGER), BOOL(Types.BIT), CONSTANT(Types.VARCHAR), GUID(Types.VARCHAR);
+        final int sqlType;
+        Kind(int sqlType) { this.sqlType = sqlType; }
+    }
+
+    // source == null → value never comes from the row (CONSTANT / GUID); fallback replaces a null source value
+    record Col(String dest, String source, Kind kind, Object fallback) {
+        static Col of(String dest, Kind kind)       { return new Col(dest, dest, kind, null); }
+        static Col raw(String dest)                 { return new Col(dest, dest, Kind.RAW, null); }
+        static Col orElse(String dest, String dflt) { return new Col(dest, dest, Kind.STRING, dflt); }
+        static Col constant(String dest, Object v)  { return new Col(dest, null, Kind.CONSTANT, v); }
+        static Col guid(String dest)                { return new Col(dest, null, Kind.GUID, null); }
+
+        // The target column's own type when the catalog knows it; RAW and CONSTANT carry no type of their own
+        int nullType(Map<String,Integer> targetTypes) { return targetTypes.getOrDefault(dest, kind.sqlType); }
+
+        Object value(Object v) {
+            return switch (kind) {
+                case INT      -> asInt(v);
+                case BOOL     -> asBool(v);
+                case TRIM     -> trim(v);
+                case CONSTANT -> fallback;
+                case GUID     -> UUID.randomUUID().toString();
+                default       -> v == null ? fallback : v;
+            };
+        }
+    }
+
+    // === COMPILED BINDING PLAN ===
+    // Columns are resolved to array positions and typed setters once per source layout, so binding a
+    // row is a straight walk over Object[] with no map lookups, no lambdas and no boxed re-parsing.
+    @FunctionalInterface
+    interface Binder { void bind(PreparedStatement ps, int index, Object[] row) throws SQLException; }
+
+    static final class BindingPlan {
+        private final Binder[] binders;
+
+        private BindingPlan(Binder[] binders) { this.binders = binders; }
+
+        // targetTypes: the target table's column types (columnTypes), used for binding nulls
+        static BindingPlan compile(List<Col> cols, String[] sourceColumns, Map<String,Integer> targetTypes) {
+            Binder[] binders = new Binder[cols.size()];
+            for (int i = 0; i < binders.length; i++) {
+                Col col = cols.get(i);
+                binders[i] = binder(col, position(sourceColumns, col.source()), col.nullType(targetTypes));
+            }
+            return new BindingPlan(binders);
+        }
+
+        int size() { return binders.length; }
+
+        void bind(PreparedStatement ps, Object[] row) throws SQLException {
+            bind(ps, row, 0);
+        }
+
+        // Binds after the first `offset` parameters (multi-row VALUES); returns the last index used
+        int bind(PreparedStatement ps, Object[] row, int offset) throws SQLException {
+            for (int i = 0; i < binders.length; i++) binders[i].bind(ps, offset+i+1, row);
+            return offset + binders.length;
+        }
+
+        private static Binder binder(Col col, int pos, int nullType) {
+            if (col.kind() == Kind.GUID) return (ps, i, r) -> ps.setString(i, UUID.randomUUID().toString());
+            if (col.kind() == Kind.CONSTANT || pos < 0) {
+                Object v = col.value(null); // resolved once
+                if (v == null) return (ps, i, r) -> ps.setNull(i, nullType);
+                if (v instanceof Integer n) { int k = n; return (ps, i, r) -> ps.setInt(i, k); }
+                if (v instanceof Boolean b) { boolean k = b; return (ps, i, r) -> ps.setBoolean(i, k); }
+                if (v instanceof String s) return (ps, i, r) -> ps.setString(i, s);
+                return (ps, i, r) -> ps.setObject(i, v);
+            }
+            return switch (col.kind()) {
+                case INT -> (ps, i, r) -> {
+                    Object v = r[pos];
+                    if (v == null) ps.setNull(i, nullType);
+                    else ps.setInt(i, v instanceof Number n ? n.intValue() : Integer.parseInt(v.toString().trim()));
+                };
+                case BOOL -> (ps, i, r) -> {
+                    Object v = r[pos];
+                    if (v == null) ps.setNull(i, nullType);
+                    else ps.setBoolean(i, v instanceof Boolean b ? b : asBool(v));
+                };
+                case TRIM -> (ps, i, r) -> {
+                    Object v = r[pos];
+                    if (v == null) ps.setNull(i, nullType);
+                    else ps.setString(i, v.toString().trim());
+                };
+                case STRING -> {
+                    String fallback = (String) col.fallback();
+                    yield (ps, i, r) -> {
+                        Object v = r[pos];
+                        if (v instanceof String s) ps.setString(i, s);
+                        else if (v != null) ps.setObject(i, v);
+                        else if (fallback != null) ps.setString(i, fallback);
+                        else ps.setNull(i, nullType);
+                    };
+                }
+                // RAW: passed through untyped, as the source value may be "AIT-1" as well as 42
+                default -> (ps, i, r) -> {
+                    Object v = r[pos];
+                    if (v == null) ps.setNull(i, nullType);
+                    else ps.setObject(i, v);
+                };
+            };
+        }
+    }
+
+    // Exact match first, then case-insensitive (drivers often upper-case result set labels)
+    private static int position(String[] columns, String name) {
+        if (name == null) return -1;
+        for (int i = 0; i < columns.length; i++) if (columns[i].equals(name)) return i;
+        for (int i = 0; i < columns.length; i++) if (columns[i].equalsIgnoreCase(name)) return i;
+        return -1;
+    }
+
     // === SQL & bind helpers ===
+    // SQL Server caps a statement at 2100 parameters (and a VALUES list at 1000 rows)
+    private static final int MAX_IN_PARAMS = 2000;
+    private static final int MAX_VALUES_ROWS = 1000;
+
+    private static <T> List<List<T>> chunks(List<T> all, int size) {
+        List<List<T>> out = new ArrayList<>();
+        for (int i = 0; i < all.size(); i += size) out.add(all.subList(i, Math.min(all.size(), i + size)));
+        return out;
+    }
+
     private static void deleteByAits(Connection c, String table, Set<Object> aits) throws SQLException {
         if (aits.isEmpty()) return;
-        String q = String.join(",", Collections.nCopies(aits.size(), "?"));
-        String sql = "DELETE FROM " + table + " WHERE AIT_NO IN (" + q + ")";
-        try (PreparedStatement ps = c.prepareStatement(sql)) {
-            int i=1; for (Object v: aits) ps.setObject(i++, v);
-            ps.executeUpdate();
+        for (List<Object> chunk : chunks(new ArrayList<>(aits), MAX_IN_PARAMS)) {
+            String q = String.join(",", Collections.nCopies(chunk.size(), "?"));
+            String sql = "DELETE FROM " + table + " WHERE AIT_NO IN (" + q + ")";
+            try (PreparedStatement ps = c.prepareStatement(sql)) {
+                int i=1; for (Object v: chunk) ps.setObject(i++, v);
+                ps.executeUpdate();
+            }
         }
     }
 
@@ -159,13 +905,41 @@ public class AitMigrator {
         return "INSERT INTO " + table + " (" + colList + ") VALUES (" + qs + ")";
     }
 
-    private static void bind(PreparedStatement ps,
-                             Map<String,Object> row,
-                             LinkedHashMap<String, Function<Map<String,Object>, Object>> mapping) throws SQLException {
+    private static void bind(PreparedStatement ps, Map<String,Object> row, List<Col> cols,
+                             Map<String,Integer> targetTypes) throws SQLException {
         int i = 1;
-        for (var fn : mapping.values()) {
-            ps.setObject(i++, fn.apply(row));
+        for (Col col : cols) {
+            setValue(ps, i++, col.value(col.source() == null ? null : row.get(col.source())), col.nullType(targetTypes));
+        }
+    }
+
+    // Values go through untyped; nulls need a type, as an untyped setObject(i, null) is rejected by some drivers
+    private static void setValue(PreparedStatement ps, int i, Object v, int nullType) throws SQLException {
+        if (v == null) ps.setNull(i, nullType);
+        else ps.setObject(i, v);
+    }
+
+    // Column name -> java.sql.Types of a target table, from the catalog (case-insensitive, empty if unknown).
+    // "schema.table" is split; unquoted names are retried upper-cased for catalogs that store them that way.
+    static Map<String,Integer> columnTypes(Connection c, String table) throws SQLException {
+        Map<String,Integer> types = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        DatabaseMetaData md = c.getMetaData();
+        int dot = table.lastIndexOf('.');
+        String schema = dot < 0 ? null : escapePattern(md, table.substring(0, dot));
+        String name = table.substring(dot + 1);
+        for (String candidate : new LinkedHashSet<>(List.of(name, name.toUpperCase(Locale.ROOT)))) {
+            try (ResultSet rs = md.getColumns(c.getCatalog(), schema, escapePattern(md, candidate), null)) {
+                while (rs.next()) types.putIfAbsent(rs.getString("COLUMN_NAME"), rs.getInt("DATA_TYPE"));
+            }
+            if (!types.isEmpty()) break;
         }
+        return types;
+    }
+
+    // getColumns takes LIKE patterns, and table names are full of '_'
+    private static String escapePattern(DatabaseMetaData md, String name) throws SQLException {
+        String esc = md.getSearchStringEscape();
+        return esc == null || esc.isEmpty() ? name : name.replace(esc, esc + esc).replace("_", esc + "_").replace("%", esc + "%");
     }
 
     // === tiny coercion helpers ===
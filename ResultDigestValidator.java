@@ -0,0 +1,214 @@
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.*;
+import java.util.*;
+
+/**
+ * Validates whole query results in constant memory.
+ *
+ * The result is streamed with a fetch size and folded into a digest plus row count as it arrives.
+ * ORDERED digests are a SHA-256 over the rows in sequence; UNORDERED digests add up a per-row
+ * 128-bit hash, so any permutation of the same rows gives the same digest. The digest is compared
+ * with an expected "rows:hex" value or with the digest of a reference query. Only when a reference
+ * comparison fails are both sides re-read side by side to collect the first maxMismatches rows;
+ * UNORDERED sides are sorted client-side for that, so only results up to MAX_SORTED_ROWS get row detail.
+ */
+public class ResultDigestValidator {
+
+    public enum Order { ORDERED, UNORDERED }
+
+    public record Digest(long rows, String hash) {
+        /** "rows:hex", the same text toString() produces; what steps store as expectedDigest. */
+        public static Digest parse(String text) {
+            int colon = text.indexOf(':');
+            if (colon < 0) throw new IllegalArgumentException("Expected digest as rows:hex, got " + text);
+            return new Digest(Long.parseLong(text.substring(0, colon).trim()), text.substring(colon + 1).trim().toLowerCase(Locale.ROOT));
+        }
+        @Override public String toString() { return rows + ":" + hash; }
+    }
+
+    public record Result(boolean matched, Digest actual, Digest expected, List<String> mismatches) {}
+
+    static final int MAX_SORTED_ROWS = 200_000;
+    private static final Comparator<String[]> ROW_ORDER =
+            (a, b) -> Arrays.compare(a, b, Comparator.nullsFirst(Comparator.<String>naturalOrder()));
+
+    private final DataSource dataSource;
+    private final int fetchSize;
+    private final int maxMismatches;
+
+    public ResultDigestValidator(DataSource dataSource, int fetchSize, int maxMismatches) {
+        this.dataSource = dataSource;
+        this.fetchSize = fetchSize;
+        this.maxMismatches = maxMismatches;
+    }
+
+    public Digest digest(String sql, Order order) throws SQLException {
+        try (Connection c = dataSource.getConnection(); Cursor cursor = new Cursor(c, sql, fetchSize)) {
+            Folder folder = new Folder(order);
+            while (cursor.next()) folder.add(cursor.row);
+            return folder.finish();
+        }
+    }
+
+    public Result validate(String sql, Digest expected, Order order) throws SQLException {
+        Digest actual = digest(sql, order);
+        return new Result(actual.equals(expected), actual, expected, List.of());
+    }
+
+    public Result validate(String sql, String referenceSql, Order order) throws SQLException {
+        Digest actual = digest(sql, order);
+        Digest expected = digest(referenceSql, order);
+        if (actual.equals(expected)) return new Result(true, actual, expected, List.of());
+        return new Result(false, actual, expected, firstMismatches(sql, referenceSql, order));
+    }
+
+    // Side-by-side re-read, row n against row n
+    private List<String> firstMismatches(String sql, String referenceSql, Order order) throws SQLException {
+        if (order == Order.UNORDERED) return firstUnorderedMismatches(sql, referenceSql);
+        List<String> out = new ArrayList<>();
+        try (Connection ca = dataSource.getConnection(); Connection cb = dataSource.getConnection();
+             Cursor a = new Cursor(ca, sql, fetchSize);
+             Cursor b = new Cursor(cb, referenceSql, fetchSize)) {
+            long rowNo = 0;
+            boolean hasA = a.next(), hasB = b.next();
+            while ((hasA || hasB) && out.size() < maxMismatches) {
+                rowNo++;
+                if (!hasA || !hasB || !Arrays.equals(a.row, b.row)) {
+                    out.add("row " + rowNo + ": actual=" + (hasA ? Arrays.toString(a.row) : "<none>")
+                            + " expected=" + (hasB ? Arrays.toString(b.row) : "<none>"));
+                }
+                if (hasA) hasA = a.next();
+                if (hasB) hasB = b.next();
+            }
+        }
+        return out;
+    }
+
+    // Sorted client-side rather than by wrapping the query in ORDER BY, which breaks on CTEs, queries
+    // with their own ORDER BY and unnamed expression columns. Sorted sides merge like a multiset diff.
+    private List<String> firstUnorderedMismatches(String sql, String referenceSql) throws SQLException {
+        List<String[]> actual = sortedRows(sql), expected = sortedRows(referenceSql);
+        if (actual == null || expected == null) {
+            return List.of("row mismatches not collected: UNORDERED results over " + MAX_SORTED_ROWS + " rows are not sorted in memory");
+        }
+        List<String> out = new ArrayList<>();
+        int i = 0, j = 0;
+        while ((i < actual.size() || j < expected.size()) && out.size() < maxMismatches) {
+            int c = i == actual.size() ? 1 : j == expected.size() ? -1 : ROW_ORDER.compare(actual.get(i), expected.get(j));
+            if (c < 0) {
+                out.add("only in actual: " + Arrays.toString(actual.get(i++)));
+            } else if (c > 0) {
+                out.add("only in expected: " + Arrays.toString(expected.get(j++)));
+            } else {
+                i++;
+                j++;
+            }
+        }
+        return out;
+    }
+
+    // null when the result has more than MAX_SORTED_ROWS rows
+    private List<String[]> sortedRows(String sql) throws SQLException {
+        List<String[]> rows = new ArrayList<>();
+        try (Connection c = dataSource.getConnection(); Cursor cursor = new Cursor(c, sql, fetchSize)) {
+            while (cursor.next()) {
+                if (rows.size() == MAX_SORTED_ROWS) return null;
+                rows.add(cursor.row);
+            }
+        }
+        rows.sort(ROW_ORDER);
+        return rows;
+    }
+
+    // === streaming ===
+    private static final class Cursor implements AutoCloseable {
+        private final PreparedStatement ps;
+        private final ResultSet rs;
+        private final int columns;
+        String[] row;
+
+        Cursor(Connection c, String sql, int fetchSize) throws SQLException {
+            ps = c.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            try {
+                ps.setFetchSize(fetchSize);
+                rs = ps.executeQuery();
+                columns = rs.getMetaData().getColumnCount();
+            } catch (SQLException e) {
+                ps.close();
+                throw e;
+            }
+        }
+
+        boolean next() throws SQLException {
+            if (!rs.next()) return false;
+            String[] values = new String[columns];
+            for (int i = 0; i < columns; i++) values[i] = normalize(rs.getObject(i+1));
+            row = values;
+            return true;
+        }
+
+        @Override public void close() throws SQLException {
+            try { rs.close(); } finally { ps.close(); }
+        }
+    }
+
+    // Same value, same text regardless of driver type (2 vs 2.00, true vs 1, bytes as hex)
+    private static String normalize(Object v) {
+        if (v == null) return null;
+        if (v instanceof Boolean b) return b ? "1" : "0";
+        if (v instanceof BigDecimal || v instanceof Double || v instanceof Float) return new BigDecimal(v.toString()).stripTrailingZeros().toPlainString();
+        if (v instanceof byte[] bytes) return HexFormat.of().formatHex(bytes);
+        return v.toString();
+    }
+
+    private static final class Folder {
+        private final Order order;
+        private final MessageDigest sequence;  // ORDERED: running digest
+        private final MessageDigest perRow;    // UNORDERED: reset per row
+        private long sumHi, sumLo, rows;
+
+        Folder(Order order) {
+            this.order = order;
+            this.sequence = sha256();
+            this.perRow = sha256();
+        }
+
+        void add(String[] row) {
+            rows++;
+            MessageDigest md = order == Order.ORDERED ? sequence : perRow;
+            md.update((byte) 0x1E); // row separator
+            for (String v : row) {
+                if (v == null) { md.update((byte) 0); continue; }
+                byte[] b = v.getBytes(StandardCharsets.UTF_8);
+                md.update((byte) 1);
+                md.update(ByteBuffer.allocate(4).putInt(b.length).array());
+                md.update(b);
+            }
+            if (order == Order.UNORDERED) {
+                ByteBuffer h = ByteBuffer.wrap(perRow.digest()); // digest() also resets perRow
+                sumHi += h.getLong();
+                sumLo += h.getLong();
+            }
+        }
+
+        Digest finish() {
+            String hash = order == Order.ORDERED
+                    ? HexFormat.of().formatHex(sequence.digest())
+                    : HexFormat.of().formatHex(ByteBuffer.allocate(16).putLong(sumHi).putLong(sumLo).array());
+            return new Digest(rows, hash);
+        }
+
+        private static MessageDigest sha256() {
+            try {
+                return MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
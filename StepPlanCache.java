@@ -0,0 +1,135 @@
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.networknt.schema.JsonSchema;
+import com.networknt.schema.JsonSchemaFactory;
+import com.networknt.schema.SpecVersion;
+import com.networknt.schema.ValidationMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Compiled test-step plans, keyed by step id and a hash of the step's parameter JSON and schema text.
+ *
+ * A plan holds the parsed parameters, the schema verdict from a compiled validator and a
+ * PreparedStatementCreator for the step query, so re-running a step parses nothing and compiles
+ * nothing. Editing a step's parameters or the schema that applies to it changes the hash, and the
+ * plan (with its verdict) is rebuilt on next use; validators are cached per schema text.
+ *
+ * The run-control keys the test-case executor reads (dependsOn, timeoutSeconds) may appear on any
+ * step. They are checked against their own schema here and removed before the step's schema sees the
+ * parameters, so step schemas with "additionalProperties": false need not list them.
+ */
+public class StepPlanCache {
+
+    private static final Logger log = LoggerFactory.getLogger(StepPlanCache.class);
+
+    // Thread-safe once configured; one instance for every plan
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final JsonSchemaFactory SCHEMAS = JsonSchemaFactory.getInstance(SpecVersion.VersionFlag.V7);
+
+    static final Set<String> RUN_CONTROL_KEYS = Set.of("dependsOn", "timeoutSeconds");
+    private static final JsonSchema RUN_CONTROL_SCHEMA = SCHEMAS.getSchema("{\"$schema\":\"http://json-schema.org/draft-07/schema#\","
+            + "\"type\":\"object\",\"properties\":{"
+            + "\"dependsOn\":{\"type\":\"array\",\"items\":{\"type\":\"integer\"}},"
+            + "\"timeoutSeconds\":{\"type\":\"integer\",\"minimum\":1}}}");
+
+    private final Function<TcSteps, String> schemaSource;
+    private final Map<String, StepPlan> plans = new ConcurrentHashMap<>();       // step id -> latest plan
+    private final Map<String, JsonSchema> validators = new ConcurrentHashMap<>(); // schema text -> compiled
+
+    /** schemaSource returns the JSON schema text that applies to a step (e.g. IntroduceDelayJSON). */
+    public StepPlanCache(Function<TcSteps, String> schemaSource) {
+        this.schemaSource = schemaSource;
+    }
+
+    public record StepPlan(String stepId, String inputHash, JsonNode parameters, Set<String> schemaErrors,
+                           String query, String expectedOutput, PreparedStatementCreator statement) {
+        public boolean valid() {
+            return schemaErrors.isEmpty();
+        }
+    }
+
+    public StepPlan planFor(TcSteps step) {
+        String stepId = String.valueOf(step.getStepId());
+        String parameters = step.getParameters();
+        String schemaText = schemaSource.apply(step);
+        // NUL cannot occur in either JSON text, so the two parts never run into each other
+        String hash = sha256((parameters == null ? "" : parameters) + '\0' + (schemaText == null ? "" : schemaText));
+
+        StepPlan cached = plans.get(stepId);
+        if (cached != null && cached.inputHash().equals(hash)) {
+            return cached;
+        }
+        StepPlan plan = compile(stepId, hash, step, schemaText);
+        plans.put(stepId, plan);
+        return plan;
+    }
+
+    public void invalidate(Object stepId) {
+        plans.remove(String.valueOf(stepId));
+    }
+
+    public void clear() {
+        plans.clear();
+        validators.clear();
+    }
+
+    public int size() {
+        return plans.size();
+    }
+
+    private StepPlan compile(String stepId, String hash, TcSteps step, String schemaText) {
+        log.debug("Compiling plan for step {}", stepId);
+        JsonNode params;
+        try {
+            params = MAPPER.readTree(step.getParameters());
+        } catch (Exception e) {
+            // Unparseable JSON can never pass validation; cache the verdict like any other
+            return new StepPlan(stepId, hash, null, Set.of("Invalid parameters JSON: " + e.getMessage()), null, null, null);
+        }
+
+        Set<String> errors = new LinkedHashSet<>();
+        for (ValidationMessage message : RUN_CONTROL_SCHEMA.validate(params)) {
+            errors.add(message.getMessage());
+        }
+        if (schemaText != null && !schemaText.isBlank()) {
+            JsonNode stepParams = params;
+            if (params.isObject()) {
+                ObjectNode copy = ((ObjectNode) params).deepCopy();
+                copy.remove(RUN_CONTROL_KEYS);
+                stepParams = copy;
+            }
+            JsonSchema schema = validators.computeIfAbsent(schemaText, SCHEMAS::getSchema);
+            for (ValidationMessage message : schema.validate(stepParams)) {
+                errors.add(message.getMessage());
+            }
+        }
+
+        String query = text(params, "query");
+        String expectedOutput = text(params, "expectedOutput");
+        PreparedStatementCreator statement = query == null ? null : con -> con.prepareStatement(query);
+        return new StepPlan(stepId, hash, params, Collections.unmodifiableSet(errors), query, expectedOutput, statement);
+    }
+
+    private static String text(JsonNode params, String field) {
+        JsonNode node = params == null ? null : params.get(field);
+        return node == null || node.isNull() ? null : node.asText();
+    }
+
+    private static String sha256(String text) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,438 @@
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.*;
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Streaming, key-ordered comparison of two tables, possibly on different servers.
+ * Java port of Comp1.sql / Sscomp.sql: same PK discovery, same column rules (keys, computed and
+ * rowversion columns are not compared, binary compares as hex, text optionally CI_AI).
+ *
+ * 1) Key pass    – streams the left keys in order and keeps at most maxRanges range boundaries.
+ * 2) Hash pass   – streams both sides concurrently, folding each row into the hash of its key range.
+ * 3) Detail pass – only ranges whose hash/count differ are re-read (WHERE key in range) and merged
+ *                  row by row into the report.
+ * Memory is bounded by maxRanges boundaries plus maxReportedRows report entries, never by table size.
+ *
+ * Each side needs its own Connection: the two sides are read from different threads in the hash pass
+ * and through two open cursors in the detail pass, which one JDBC connection does not support.
+ */
+public class TableDiff {
+
+    public record TableRef(Connection connection, String catalog, String schema, String table) {
+        public static TableRef of(Connection c, String table) { return new TableRef(c, null, null, table); }
+    }
+
+    // keyColumns null/empty = use the primary key (must be the same on both sides)
+    public record Options(List<String> keyColumns, Set<String> ignoreColumns, boolean caseInsensitive,
+                          int rangeSize, int maxRanges, int fetchSize, int maxReportedRows) {
+        public static Options defaults() { return new Options(null, Set.of(), true, 1000, 4096, 1000, 1000); }
+        public Options ignoring(String... columns) {
+            Set<String> all = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+            all.addAll(ignoreColumns); all.addAll(List.of(columns));
+            return new Options(keyColumns, all, caseInsensitive, rangeSize, maxRanges, fetchSize, maxReportedRows);
+        }
+    }
+
+    public record RowDiff(List<Object> key, Map<String, Object[]> columns) {} // column -> {left, right}
+
+    public record Report(String table, List<String> keyColumns, List<String> comparedColumns,
+                         long rowsLeft, long rowsRight, int ranges, int rangesMismatched,
+                         long onlyLeftCount, long onlyRightCount, long changedCount,
+                         List<List<Object>> onlyLeft, List<List<Object>> onlyRight, List<RowDiff> changed) {
+        public boolean clean() { return onlyLeftCount == 0 && onlyRightCount == 0 && changedCount == 0; }
+
+        public String format() {
+            StringBuilder sb = new StringBuilder();
+            sb.append("== ").append(table).append(" ==  keys=").append(keyColumns)
+              .append("  rows left/right=").append(rowsLeft).append('/').append(rowsRight)
+              .append("  ranges mismatched=").append(rangesMismatched).append('/').append(ranges).append('\n');
+            sb.append("only in left: ").append(onlyLeftCount).append('\n');
+            onlyLeft.forEach(k -> sb.append("  ").append(k).append('\n'));
+            sb.append("only in right: ").append(onlyRightCount).append('\n');
+            onlyRight.forEach(k -> sb.append("  ").append(k).append('\n'));
+            sb.append("changed: ").append(changedCount).append('\n');
+            for (RowDiff d : changed) {
+                sb.append("  ").append(d.key());
+                d.columns().forEach((col, v) -> sb.append("  ").append(col).append(": ").append(v[0]).append(" <> ").append(v[1]));
+                sb.append('\n');
+            }
+            long shown = onlyLeft.size() + onlyRight.size() + changed.size();
+            if (shown < onlyLeftCount + onlyRightCount + changedCount) sb.append("(first ").append(shown).append(" differences shown)\n");
+            return sb.toString();
+        }
+    }
+
+    // === ENTRYPOINT ===
+    public static Report compare(TableRef left, TableRef right, Options options) throws Exception {
+        if (left.connection() == right.connection()) {
+            throw new IllegalArgumentException("Both sides of " + left.table() + " / " + right.table()
+                    + " use the same Connection; open a separate one per side");
+        }
+        Schema schema = Schema.resolve(left, right, options);
+        String leftSql  = selectSql(left, schema);
+        String rightSql = selectSql(right, schema);
+        Comparator<Object[]> keyOrder = keyOrder(schema.keys.size(), options.caseInsensitive());
+
+        // 1) Key pass: range upper bounds (inclusive); the last range is open-ended
+        List<Object[]> bounds = boundaries(left, schema, options, keyOrder);
+
+        // 2) Hash pass, both sides at once
+        ExecutorService side = Executors.newSingleThreadExecutor();
+        RangeHashes lh, rh;
+        try {
+            Future<RangeHashes> rightFuture = side.submit(() -> hashRanges(right, rightSql, schema, bounds, options, keyOrder));
+            lh = hashRanges(left, leftSql, schema, bounds, options, keyOrder);
+            try {
+                rh = rightFuture.get();
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof Exception ex ? ex : new IllegalStateException(e.getCause());
+            }
+        } finally {
+            side.shutdownNow();
+        }
+
+        // 3) Detail pass over mismatched ranges only
+        Detail detail = new Detail(options.maxReportedRows());
+        int mismatched = 0;
+        for (int r = 0; r <= bounds.size(); r++) {
+            if (lh.hash[r] == rh.hash[r] && lh.count[r] == rh.count[r]) continue;
+            mismatched++;
+            Object[] lo = r == 0 ? null : bounds.get(r-1);
+            Object[] hi = r == bounds.size() ? null : bounds.get(r);
+            diffRange(left, right, schema, lo, hi, options, keyOrder, detail);
+        }
+
+        return new Report(left.table(), schema.keys, schema.compared, lh.rows, rh.rows, bounds.size()+1, mismatched,
+                detail.onlyLeftCount, detail.onlyRightCount, detail.changedCount,
+                detail.onlyLeft, detail.onlyRight, detail.changed);
+    }
+
+    // === METADATA (same rules as the scripts) ===
+    private static final class Schema {
+        final List<String> keys = new ArrayList<>();
+        final List<String> compared = new ArrayList<>();
+        final List<Boolean> textLike = new ArrayList<>();  // CI applies only when both sides are text
+        final List<Boolean> binary = new ArrayList<>();    // hex when either side is binary
+
+        static Schema resolve(TableRef left, TableRef right, Options options) throws SQLException {
+            Map<String, ColumnInfo> lc = columns(left), rc = columns(right);
+            if (lc.isEmpty()) throw new SQLException("Table not found: " + left.table());
+            if (rc.isEmpty()) throw new SQLException("Table not found: " + right.table());
+
+            Schema s = new Schema();
+            if (options.keyColumns() == null || options.keyColumns().isEmpty()) {
+                List<String> lk = primaryKey(left), rk = primaryKey(right);
+                if (lk.isEmpty()) throw new SQLException("No PK detected on " + left.table() + "; pass keyColumns");
+                if (!new TreeSet<>(lk).equals(new TreeSet<>(rk))) throw new SQLException("Primary keys differ; pass keyColumns explicitly");
+                for (String k : lk) s.keys.add(lc.get(k.toUpperCase(Locale.ROOT)).name);
+            } else {
+                s.keys.addAll(options.keyColumns());
+            }
+            Set<String> keySet = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+            keySet.addAll(s.keys);
+
+            for (ColumnInfo c1 : lc.values()) {
+                ColumnInfo c2 = rc.get(c1.name.toUpperCase(Locale.ROOT));
+                if (c2 == null || keySet.contains(c1.name) || options.ignoreColumns().contains(c1.name)) continue;
+                if (c1.computed || c2.computed || c1.rowversion() || c2.rowversion()) continue;
+                s.compared.add(c1.name);
+                s.textLike.add(c1.textLike() && c2.textLike());
+                s.binary.add(c1.binary() || c2.binary());
+            }
+            return s;
+        }
+    }
+
+    private record ColumnInfo(String name, int sqlType, String typeName, boolean computed) {
+        boolean rowversion() { return typeName.equalsIgnoreCase("timestamp") || typeName.equalsIgnoreCase("rowversion"); }
+        boolean textLike() {
+            return switch (sqlType) {
+                case Types.CHAR, Types.VARCHAR, Types.LONGVARCHAR, Types.NCHAR, Types.NVARCHAR, Types.LONGNVARCHAR, Types.CLOB, Types.NCLOB -> true;
+                default -> false;
+            };
+        }
+        boolean binary() {
+            return rowversion() || sqlType == Types.BINARY || sqlType == Types.VARBINARY || sqlType == Types.LONGVARBINARY || sqlType == Types.BLOB;
+        }
+    }
+
+    // Upper-cased name -> column, in ordinal order
+    private static Map<String, ColumnInfo> columns(TableRef t) throws SQLException {
+        Map<String, ColumnInfo> out = new LinkedHashMap<>();
+        try (ResultSet rs = t.connection().getMetaData().getColumns(t.catalog(), t.schema(), t.table(), null)) {
+            while (rs.next()) {
+                String name = rs.getString("COLUMN_NAME");
+                String generated = rs.getString("IS_GENERATEDCOLUMN");
+                out.put(name.toUpperCase(Locale.ROOT), new ColumnInfo(name, rs.getInt("DATA_TYPE"), rs.getString("TYPE_NAME"), "YES".equalsIgnoreCase(generated)));
+            }
+        }
+        return out;
+    }
+
+    private static List<String> primaryKey(TableRef t) throws SQLException {
+        TreeMap<Short, String> bySeq = new TreeMap<>();
+        try (ResultSet rs = t.connection().getMetaData().getPrimaryKeys(t.catalog(), t.schema(), t.table())) {
+            while (rs.next()) bySeq.put(rs.getShort("KEY_SEQ"), rs.getString("COLUMN_NAME"));
+        }
+        List<String> keys = new ArrayList<>();
+        for (String k : bySeq.values()) keys.add(k.toUpperCase(Locale.ROOT));
+        return keys;
+    }
+
+    // === SQL ===
+    private static String selectSql(TableRef t, Schema s) throws SQLException {
+        List<String> cols = new ArrayList<>(s.keys);
+        cols.addAll(s.compared);
+        return "SELECT " + quoteAll(t, cols) + " FROM " + qualified(t) + " ";
+    }
+
+    private static String orderBy(TableRef t, Schema s) throws SQLException { return " ORDER BY " + quoteAll(t, s.keys); }
+
+    private static String qualified(TableRef t) throws SQLException {
+        StringBuilder sb = new StringBuilder();
+        if (t.catalog() != null) sb.append(quote(t, t.catalog())).append('.');
+        if (t.schema() != null) sb.append(quote(t, t.schema())).append('.');
+        return sb.append(quote(t, t.table())).toString();
+    }
+
+    private static String quoteAll(TableRef t, List<String> names) throws SQLException {
+        StringJoiner j = new StringJoiner(",");
+        for (String n : names) j.add(quote(t, n));
+        return j.toString();
+    }
+
+    private static String quote(TableRef t, String name) throws SQLException {
+        String q = t.connection().getMetaData().getIdentifierQuoteString();
+        return q == null || q.isBlank() ? name : q + name.replace(q, q + q) + q;
+    }
+
+    // Lexicographic (k1,k2,..) op (?,?,..), written out for drivers without row-value comparison
+    private static String keyPredicate(TableRef t, List<String> keys, String strictOp, String lastOp, List<Object> params, Object[] bound) throws SQLException {
+        StringJoiner or = new StringJoiner(" OR ", "(", ")");
+        for (int i = 0; i < keys.size(); i++) {
+            StringJoiner and = new StringJoiner(" AND ", "(", ")");
+            for (int j = 0; j < i; j++) { and.add(quote(t, keys.get(j)) + " = ?"); params.add(bound[j]); }
+            and.add(quote(t, keys.get(i)) + " " + (i == keys.size()-1 ? lastOp : strictOp) + " ?");
+            params.add(bound[i]);
+            or.add(and.toString());
+        }
+        return or.toString();
+    }
+
+    // === PASS 1: range boundaries ===
+    private static List<Object[]> boundaries(TableRef left, Schema s, Options options, Comparator<Object[]> keyOrder) throws SQLException {
+        List<Object[]> bounds = new ArrayList<>();
+        long stride = Math.max(1, options.rangeSize()), n = 0;
+        String sql = "SELECT " + quoteAll(left, s.keys) + " FROM " + qualified(left) + orderBy(left, s);
+        try (PreparedStatement ps = left.connection().prepareStatement(sql)) {
+            ps.setFetchSize(options.fetchSize());
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    if (++n % stride != 0) continue;
+                    bounds.add(readKey(rs, s.keys.size()));
+                    if (bounds.size() >= options.maxRanges()) {
+                        // Too many ranges: keep every second boundary and double the stride
+                        List<Object[]> halved = new ArrayList<>(bounds.size() / 2 + 1);
+                        for (int i = 1; i < bounds.size(); i += 2) halved.add(bounds.get(i));
+                        bounds = halved;
+                        stride *= 2;
+                    }
+                }
+            }
+        }
+        return bounds;
+    }
+
+    // === PASS 2: per-range hashes ===
+    private record RangeHashes(long[] hash, long[] count, long rows) {}
+
+    private static RangeHashes hashRanges(TableRef t, String select, Schema s, List<Object[]> bounds,
+                                          Options options, Comparator<Object[]> keyOrder) throws SQLException {
+        long[] hash = new long[bounds.size()+1], count = new long[bounds.size()+1];
+        long rows = 0;
+        int range = 0;
+        try (PreparedStatement ps = t.connection().prepareStatement(select + orderBy(t, s))) {
+            ps.setFetchSize(options.fetchSize());
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Object[] key = readKey(rs, s.keys.size());
+                    while (range < bounds.size() && keyOrder.compare(key, bounds.get(range)) > 0) range++;
+                    hash[range] = mix(hash[range] ^ rowHash(key, readValues(rs, s, options)));
+                    count[range]++;
+                    rows++;
+                }
+            }
+        }
+        return new RangeHashes(hash, count, rows);
+    }
+
+    // === PASS 3: row-level detail for one mismatched range ===
+    private static final class Detail {
+        final int max;
+        final List<List<Object>> onlyLeft = new ArrayList<>(), onlyRight = new ArrayList<>();
+        final List<RowDiff> changed = new ArrayList<>();
+        long onlyLeftCount, onlyRightCount, changedCount;
+        Detail(int max) { this.max = max; }
+        boolean room() { return onlyLeft.size() + onlyRight.size() + changed.size() < max; }
+    }
+
+    private static void diffRange(TableRef left, TableRef right, Schema s, Object[] lo, Object[] hi,
+                                  Options options, Comparator<Object[]> keyOrder, Detail detail) throws SQLException {
+        try (Cursor l = Cursor.open(left, s, lo, hi, options); Cursor r = Cursor.open(right, s, lo, hi, options)) {
+            boolean hasL = l.next(), hasR = r.next();
+            while (hasL || hasR) {
+                int c = !hasL ? 1 : !hasR ? -1 : keyOrder.compare(l.key, r.key);
+                if (c < 0) {
+                    detail.onlyLeftCount++;
+                    if (detail.room()) detail.onlyLeft.add(Arrays.asList(l.key));
+                    hasL = l.next();
+                } else if (c > 0) {
+                    detail.onlyRightCount++;
+                    if (detail.room()) detail.onlyRight.add(Arrays.asList(r.key));
+                    hasR = r.next();
+                } else {
+                    Map<String, Object[]> cols = new LinkedHashMap<>();
+                    for (int i = 0; i < s.compared.size(); i++) {
+                        if (!Objects.equals(l.values[i], r.values[i])) cols.put(s.compared.get(i), new Object[]{l.values[i], r.values[i]});
+                    }
+                    if (!cols.isEmpty()) {
+                        detail.changedCount++;
+                        if (detail.room()) detail.changed.add(new RowDiff(Arrays.asList(l.key), cols));
+                    }
+                    hasL = l.next();
+                    hasR = r.next();
+                }
+            }
+        }
+    }
+
+    private static final class Cursor implements AutoCloseable {
+        private final PreparedStatement ps;
+        private final ResultSet rs;
+        private final Schema s;
+        private final Options options;
+        Object[] key, values;
+
+        private Cursor(PreparedStatement ps, Schema s, Options options) throws SQLException {
+            this.ps = ps; this.s = s; this.options = options;
+            this.rs = ps.executeQuery();
+        }
+
+        // lo exclusive, hi inclusive; null = unbounded
+        static Cursor open(TableRef t, Schema s, Object[] lo, Object[] hi, Options options) throws SQLException {
+            List<Object> params = new ArrayList<>();
+            List<String> where = new ArrayList<>();
+            if (lo != null) where.add(keyPredicate(t, s.keys, ">", ">", params, lo));
+            if (hi != null) where.add(keyPredicate(t, s.keys, "<", "<=", params, hi));
+            String sql = selectSql(t, s) + (where.isEmpty() ? "" : "WHERE " + String.join(" AND ", where)) + orderBy(t, s);
+            PreparedStatement ps = t.connection().prepareStatement(sql);
+            try {
+                ps.setFetchSize(options.fetchSize());
+                for (int i = 0; i < params.size(); i++) ps.setObject(i+1, params.get(i));
+                return new Cursor(ps, s, options);
+            } catch (SQLException e) {
+                ps.close();
+                throw e;
+            }
+        }
+
+        boolean next() throws SQLException {
+            if (!rs.next()) return false;
+            key = readKey(rs, s.keys.size());
+            values = readValues(rs, s, options);
+            return true;
+        }
+
+        @Override public void close() throws SQLException {
+            try { rs.close(); } finally { ps.close(); }
+        }
+    }
+
+    // === VALUES ===
+    private static Object[] readKey(ResultSet rs, int n) throws SQLException {
+        Object[] key = new Object[n];
+        for (int i = 0; i < n; i++) key[i] = rs.getObject(i+1);
+        return key;
+    }
+
+    // Compared columns as normalized strings (null stays null), exactly what the scripts compare
+    private static Object[] readValues(ResultSet rs, Schema s, Options options) throws SQLException {
+        int offset = s.keys.size();
+        Object[] values = new Object[s.compared.size()];
+        for (int i = 0; i < values.length; i++) {
+            Object v = rs.getObject(offset+i+1);
+            if (v == null) continue;
+            if (s.binary.get(i)) values[i] = hex(rs.getBytes(offset+i+1));
+            else if (options.caseInsensitive() && s.textLike.get(i)) values[i] = foldCiAi(v.toString());
+            else values[i] = normalize(v);
+        }
+        return values;
+    }
+
+    private static String normalize(Object v) {
+        if (v instanceof Boolean b) return b ? "1" : "0";
+        if (v instanceof BigDecimal || v instanceof Double || v instanceof Float) return new BigDecimal(v.toString()).stripTrailingZeros().toPlainString();
+        if (v instanceof Clob c) {
+            try { return c.getSubString(1, (int) c.length()); } catch (SQLException e) { throw new IllegalStateException(e); }
+        }
+        return v.toString();
+    }
+
+    // ≈ COLLATE Latin1_General_CI_AI: case-folded, accents stripped
+    private static String foldCiAi(String s) {
+        return Normalizer.normalize(s, Normalizer.Form.NFD).replaceAll("\\p{M}", "").toLowerCase(Locale.ROOT);
+    }
+
+    private static String hex(byte[] b) {
+        if (b == null) return null;
+        StringBuilder sb = new StringBuilder(2 + b.length * 2).append("0x");
+        for (byte x : b) sb.append(Character.forDigit((x >> 4) & 0xF, 16)).append(Character.forDigit(x & 0xF, 16));
+        return sb.toString();
+    }
+
+    private static long rowHash(Object[] key, Object[] values) {
+        long h = 0x9E3779B97F4A7C15L;
+        for (Object k : key) h = mix(h ^ hashOf(k == null ? null : normalize(k)));
+        for (Object v : values) h = mix(h ^ hashOf((String) v));
+        return h;
+    }
+
+    // FNV-1a over UTF-8; null hashes differently from ""
+    private static long hashOf(String s) {
+        if (s == null) return 0x5bd1e995L;
+        long h = 0xcbf29ce484222325L;
+        for (byte b : s.getBytes(StandardCharsets.UTF_8)) { h ^= b & 0xFF; h *= 0x100000001b3L; }
+        return h;
+    }
+
+    // splitmix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    // Must agree with the servers' ORDER BY: numbers numerically, text ordinally (case-insensitively
+    // when requested). Text keys under a collation that orders differently need explicit numeric keys.
+    private static Comparator<Object[]> keyOrder(int n, boolean caseInsensitive) {
+        return (a, b) -> {
+            for (int i = 0; i < n; i++) {
+                int c = compareValue(a[i], b[i], caseInsensitive);
+                if (c != 0) return c;
+            }
+            return 0;
+        };
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compareValue(Object a, Object b, boolean caseInsensitive) {
+        if (a == null || b == null) return a == null ? (b == null ? 0 : -1) : 1;
+        if (a instanceof Number x && b instanceof Number y) return new BigDecimal(x.toString()).compareTo(new BigDecimal(y.toString()));
+        if (a instanceof String x && b instanceof String y) return caseInsensitive ? x.compareToIgnoreCase(y) : x.compareTo(y);
+        if (a instanceof Comparable x && a.getClass() == b.getClass()) return x.compareTo(b);
+        return a.toString().compareTo(b.toString());
+    }
+}
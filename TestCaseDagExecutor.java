@@ -0,0 +1,309 @@
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs test-case steps as a dependency graph instead of one after another.
+ *
+ * Steps whose dependencies have passed start immediately, limited per data source (SQL Server,
+ * Linux host, Kafka, ...) so one target is never flooded. A limit that is reached queues the step
+ * instead of parking a worker. Delay steps are ScheduledExecutor timers, not sleeping threads.
+ * A step fails on exception or on its timeout; its dependents are skipped, and with failFast every
+ * step not yet finished is cancelled.
+ *
+ * <pre>
+ * executor.plan()
+ *     .step("TC1#1", "SQLSERVER", Duration.ofMinutes(2), () -> service.executeAndValidateQuery(tc, s1))
+ *     .delay("TC1#2", Duration.ofSeconds(30), "TC1#1")
+ *     .step("TC1#3", "KAFKA", Duration.ofMinutes(1), () -> service.checkTopic(tc, s3), "TC1#2")
+ *     .run(true);
+ * </pre>
+ */
+public class TestCaseDagExecutor implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(TestCaseDagExecutor.class);
+
+    public enum Status { PASSED, FAILED, TIMED_OUT, SKIPPED }
+
+    public record StepResult(String id, Status status, Throwable error, long durationMillis) {}
+
+    public record RunReport(List<StepResult> results, long elapsedMillis) {
+        public boolean succeeded() {
+            return results.stream().allMatch(r -> r.status() == Status.PASSED);
+        }
+    }
+
+    @FunctionalInterface
+    public interface StepWork {
+        void run() throws Exception;
+    }
+
+    /** Told when a step starts and when a started step finishes, e.g. to log delays, which run no work. */
+    public interface Listener {
+        default void started(String id) {}
+
+        default void finished(StepResult result) {}
+    }
+
+    private final ExecutorService workers;
+    private final ScheduledExecutorService timers;
+    private final Map<String, Limiter> limiters = new ConcurrentHashMap<>();
+    private final Map<String, Integer> dataSourceLimits;
+    private final int defaultDataSourceLimit;
+
+    public TestCaseDagExecutor(int workerThreads, Map<String, Integer> dataSourceLimits, int defaultDataSourceLimit) {
+        this.workers = Executors.newFixedThreadPool(workerThreads);
+        this.timers = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "tc-dag-timer");
+            t.setDaemon(true);
+            return t;
+        });
+        this.dataSourceLimits = Map.copyOf(dataSourceLimits);
+        this.defaultDataSourceLimit = defaultDataSourceLimit;
+    }
+
+    public Plan plan() {
+        return new Plan();
+    }
+
+    @Override
+    public void close() {
+        workers.shutdownNow();
+        timers.shutdownNow();
+    }
+
+    private record Node(String id, String dataSource, Duration timeout, StepWork work, Duration delay, List<String> dependsOn) {}
+
+    public final class Plan {
+        private final Map<String, Node> nodes = new LinkedHashMap<>();
+        private Listener listener = new Listener() {};
+
+        /** Runs work on a worker once every dependency passed and dataSource has a free slot. */
+        public Plan step(String id, String dataSource, Duration timeout, StepWork work, String... dependsOn) {
+            return add(new Node(id, dataSource, timeout, work, null, List.of(dependsOn)));
+        }
+
+        /** Passes delay after its dependencies passed, without holding a thread or a data-source slot. */
+        public Plan delay(String id, Duration delay, String... dependsOn) {
+            return add(new Node(id, null, null, null, delay, List.of(dependsOn)));
+        }
+
+        public Plan listener(Listener listener) {
+            this.listener = listener;
+            return this;
+        }
+
+        private Plan add(Node node) {
+            if (nodes.putIfAbsent(node.id(), node) != null) {
+                throw new IllegalArgumentException("Duplicate step id " + node.id());
+            }
+            return this;
+        }
+
+        public CompletableFuture<RunReport> run(boolean failFast) {
+            List<Node> order = topologicalOrder();
+            Run run = new Run(failFast, listener);
+            Map<String, CompletableFuture<StepResult>> results = new HashMap<>();
+            for (Node node : order) {
+                CompletableFuture<?>[] deps = node.dependsOn().stream().map(results::get).toArray(CompletableFuture[]::new);
+                results.put(node.id(), CompletableFuture.allOf(deps).thenCompose(v -> {
+                    for (CompletableFuture<?> dep : deps) {
+                        if (((StepResult) dep.join()).status() != Status.PASSED) {
+                            return CompletableFuture.completedFuture(new StepResult(node.id(), Status.SKIPPED, null, 0));
+                        }
+                    }
+                    return run.start(node);
+                }));
+            }
+            List<CompletableFuture<StepResult>> all = nodes.keySet().stream().map(results::get).toList();
+            return CompletableFuture.allOf(all.toArray(CompletableFuture[]::new))
+                    .thenApply(v -> new RunReport(all.stream().map(CompletableFuture::join).toList(),
+                            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - run.startedNanos)));
+        }
+
+        // Kahn's algorithm; rejects unknown dependencies and cycles before anything starts
+        private List<Node> topologicalOrder() {
+            Map<String, Integer> indegree = new HashMap<>();
+            Map<String, List<String>> dependents = new HashMap<>();
+            for (Node node : nodes.values()) {
+                indegree.putIfAbsent(node.id(), 0);
+                for (String dep : node.dependsOn()) {
+                    if (!nodes.containsKey(dep)) {
+                        throw new IllegalArgumentException("Step " + node.id() + " depends on unknown step " + dep);
+                    }
+                    indegree.merge(node.id(), 1, Integer::sum);
+                    dependents.computeIfAbsent(dep, k -> new ArrayList<>()).add(node.id());
+                }
+            }
+            Deque<String> ready = new ArrayDeque<>();
+            indegree.forEach((id, n) -> { if (n == 0) ready.add(id); });
+            List<Node> order = new ArrayList<>(nodes.size());
+            while (!ready.isEmpty()) {
+                String id = ready.poll();
+                order.add(nodes.get(id));
+                for (String next : dependents.getOrDefault(id, List.of())) {
+                    if (indegree.merge(next, -1, Integer::sum) == 0) ready.add(next);
+                }
+            }
+            if (order.size() != nodes.size()) {
+                throw new IllegalArgumentException("Dependency cycle between steps " + indegree.entrySet().stream()
+                        .filter(e -> e.getValue() > 0).map(Map.Entry::getKey).sorted().toList());
+            }
+            return order;
+        }
+    }
+
+    // One plan execution: tracks in-flight steps so failFast can cancel them
+    private final class Run {
+        final boolean failFast;
+        final Listener listener;
+        final long startedNanos = System.nanoTime();
+        final AtomicBoolean failed = new AtomicBoolean();
+        final Set<StepRun> active = ConcurrentHashMap.newKeySet();
+
+        Run(boolean failFast, Listener listener) {
+            this.failFast = failFast;
+            this.listener = listener;
+        }
+
+        CompletableFuture<StepResult> start(Node node) {
+            StepRun step = new StepRun(node);
+            if (failFast && failed.get()) {
+                return CompletableFuture.completedFuture(new StepResult(node.id(), Status.SKIPPED, null, 0));
+            }
+            active.add(step);
+            listener.started(node.id());
+            // Dependents and the report chain off this stage, so they see the listener's work done
+            CompletableFuture<StepResult> done = step.result.whenComplete((r, e) -> {
+                active.remove(step);
+                if (r.status() == Status.FAILED || r.status() == Status.TIMED_OUT) {
+                    log.info("Step {} {} after {} ms", r.id(), r.status(), r.durationMillis(), r.error());
+                    if (failFast && failed.compareAndSet(false, true)) {
+                        active.forEach(StepRun::cancel);
+                    }
+                }
+                listener.finished(r);
+            });
+            if (node.delay() != null) {
+                step.started = System.nanoTime();
+                ScheduledFuture<?> timer = timers.schedule(() -> step.finish(Status.PASSED, null), node.delay().toMillis(), TimeUnit.MILLISECONDS);
+                step.result.whenComplete((r, e) -> timer.cancel(false));
+            } else {
+                limiter(node.dataSource()).submit(step::execute);
+            }
+            return done;
+        }
+    }
+
+    private final class StepRun {
+        final Node node;
+        final CompletableFuture<StepResult> result = new CompletableFuture<>();
+        volatile long started;
+        private Thread runner; // guarded by this; set only while work() runs
+
+        StepRun(Node node) {
+            this.node = node;
+        }
+
+        void execute() {
+            if (result.isDone()) {
+                return; // cancelled while queued for its data source
+            }
+            started = System.nanoTime();
+            ScheduledFuture<?> timeout = node.timeout() == null ? null
+                    : timers.schedule(this::timeout, node.timeout().toMillis(), TimeUnit.MILLISECONDS);
+            synchronized (this) {
+                runner = Thread.currentThread();
+            }
+            try {
+                node.work().run();
+                finish(Status.PASSED, null);
+            } catch (Throwable t) {
+                finish(Status.FAILED, t);
+            } finally {
+                synchronized (this) {
+                    runner = null;
+                    Thread.interrupted(); // never leak an interrupt aimed at this step into the next task
+                }
+                if (timeout != null) {
+                    timeout.cancel(false);
+                }
+            }
+        }
+
+        void timeout() {
+            if (finish(Status.TIMED_OUT, new TimeoutException("Step " + node.id() + " exceeded " + node.timeout()))) {
+                interrupt();
+            }
+        }
+
+        void cancel() {
+            if (finish(Status.SKIPPED, new CancellationException("Cancelled by fail-fast"))) {
+                interrupt();
+            }
+        }
+
+        private synchronized void interrupt() {
+            if (runner != null) {
+                runner.interrupt();
+            }
+        }
+
+        boolean finish(Status status, Throwable error) {
+            long took = started == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+            return result.complete(new StepResult(node.id(), status, error, took));
+        }
+    }
+
+    private Limiter limiter(String dataSource) {
+        String key = dataSource == null ? "" : dataSource;
+        return limiters.computeIfAbsent(key, k -> new Limiter(dataSourceLimits.getOrDefault(k, defaultDataSourceLimit)));
+    }
+
+    // Per-data-source slot counter; queued steps wait in a deque, not on a worker thread
+    private final class Limiter {
+        private final Deque<Runnable> queue = new ArrayDeque<>();
+        private int available;
+
+        Limiter(int permits) {
+            this.available = permits;
+        }
+
+        void submit(Runnable task) {
+            synchronized (this) {
+                if (available == 0) {
+                    queue.add(task);
+                    return;
+                }
+                available--;
+            }
+            dispatch(task);
+        }
+
+        private void dispatch(Runnable task) {
+            workers.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    release();
+                }
+            });
+        }
+
+        private void release() {
+            Runnable next;
+            synchronized (this) {
+                next = queue.poll();
+                if (next == null) {
+                    available++;
+                    return;
+                }
+            }
+            dispatch(next);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+
+/**
+ * Runs the benchmarks with JSON results, or compares two result files.
+ *
+ * <pre>
+ * java -jar benchmarks.jar [jmh options]              -> benchmarks/results/jmh-yyyyMMdd-HHmmss.json
+ * java -jar benchmarks.jar --compare old.json new.json [thresholdPercent]
+ * </pre>
+ *
+ * Runs accept every normal JMH option (include regex, -p statsSize=10000, -f 1, ...); an explicit
+ * -rf / -rff wins over the defaults. A comparison lists each benchmark + parameter combination
+ * present in both files and exits with 1 when any got worse by more than the threshold (default
+ * 10%) beyond the two runs' combined error, so it can gate a CI job.
+ */
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("--compare")) {
+            if (args.length < 3) {
+                System.err.println("usage: --compare old.json new.json [thresholdPercent]");
+                System.exit(2);
+            }
+            double threshold = args.length > 3 ? Double.parseDouble(args[3]) : 10.0;
+            System.exit(compare(Path.of(args[1]), Path.of(args[2]), threshold) ? 0 : 1);
+        }
+
+        CommandLineOptions cli = new CommandLineOptions(args);
+        OptionsBuilder options = new OptionsBuilder();
+        options.parent(cli);
+        if (!cli.getResultFormat().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON);
+        }
+        if (!cli.getResult().hasValue()) {
+            File dir = new File("benchmarks/results");
+            dir.mkdirs();
+            String stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+            options.result(new File(dir, "jmh-" + stamp + ".json").getPath());
+        }
+        new Runner(options.build()).run();
+    }
+
+    private record Score(double score, double error, String unit, boolean higherIsBetter) {}
+
+    static boolean compare(Path before, Path after, double thresholdPercent) throws IOException {
+        Map<String, Score> old = read(before);
+        Map<String, Score> now = read(after);
+        boolean ok = true;
+        for (Map.Entry<String, Score> entry : now.entrySet()) {
+            Score was = old.get(entry.getKey());
+            if (was == null) {
+                continue;
+            }
+            Score is = entry.getValue();
+            double change = (is.score() - was.score()) / was.score() * 100;
+            double worse = is.higherIsBetter() ? -change : change;
+            // Only flag changes larger than the threshold and outside both runs' error bars
+            boolean regressed = worse > thresholdPercent
+                    && Math.abs(is.score() - was.score()) > zeroIfNaN(is.error()) + zeroIfNaN(was.error());
+            ok &= !regressed;
+            System.out.printf(Locale.ROOT, "%-10s %+8.1f%%  %14.3f -> %14.3f %-8s %s%n",
+                    regressed ? "REGRESSED" : worse < -thresholdPercent ? "improved" : "", change,
+                    was.score(), is.score(), is.unit(), entry.getKey());
+        }
+        return ok;
+    }
+
+    // benchmark name + sorted params -> primary score
+    private static Map<String, Score> read(Path file) throws IOException {
+        Map<String, Score> scores = new TreeMap<>();
+        for (JsonNode run : new ObjectMapper().readTree(Files.readAllBytes(file))) {
+            StringBuilder key = new StringBuilder(run.path("benchmark").asText());
+            Map<String, String> params = new TreeMap<>();
+            run.path("params").fields().forEachRemaining(p -> params.put(p.getKey(), p.getValue().asText()));
+            params.forEach((name, value) -> key.append(' ').append(name).append('=').append(value));
+            JsonNode metric = run.path("primaryMetric");
+            String mode = run.path("mode").asText();
+            scores.put(key.toString(), new Score(metric.path("score").asDouble(), metric.path("scoreError").asDouble(Double.NaN),
+                    metric.path("scoreUnit").asText(), mode.equals("thrpt")));
+        }
+        return scores;
+    }
+
+    private static double zeroIfNaN(double value) {
+        return Double.isNaN(value) ? 0 : value;
+    }
+}
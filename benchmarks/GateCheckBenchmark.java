@@ -0,0 +1,100 @@
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Config gate: full list scan vs indexed lookup vs one batch per scheduler cycle, plus the cost of
+ * a status update (which re-encodes the event map and updates the index).
+ *
+ * Stats are spread over statsSize / 10 AITs and three DB types, so each (AIT_NO, DB_TYPE) holds
+ * a few configs; about 1% of rows hold a blocking producer/metadata event. eventMapSize pads each
+ * event map with non-gating events, which is what the update path has to walk.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn")
+public class GateCheckBenchmark {
+
+    private static final String[] DB_TYPES = {"SQLSERVER", "ORACLE", "DB2"};
+    private static final int CANDIDATES_PER_BATCH = 1_000;
+
+    @Param({"1000", "10000", "100000"})
+    int statsSize;
+
+    @Param({"2", "8", "32"})
+    int eventMapSize;
+
+    private ConfigStatusChecker checker;
+    private List<ConfigStatusChecker.Stats> stats;
+    private ConfigGateBatch.GateCandidate[] queries;
+    private List<ConfigGateBatch.GateCandidate> batch;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        int aits = Math.max(1, statsSize / 10);
+        stats = new ArrayList<>(statsSize);
+        for (int i = 0; i < statsSize; i++) {
+            String ait = "AIT" + random.nextInt(aits);
+            String dbType = DB_TYPES[random.nextInt(DB_TYPES.length)];
+            stats.add(new ConfigStatusChecker.Stats(ait, "CFG-" + i, dbType, eventMap(random, random.nextInt(100) == 0)));
+        }
+        checker = new ConfigStatusChecker();
+        checker.loadStats(stats);
+
+        // Queries against existing partitions, so the scan cannot stop at the first row
+        queries = new ConfigGateBatch.GateCandidate[4096];
+        for (int i = 0; i < queries.length; i++) {
+            ConfigStatusChecker.Stats stat = stats.get(random.nextInt(statsSize));
+            queries[i] = new ConfigGateBatch.GateCandidate(stat.getAitNo(), stat.getDbType(), stat.getConfigId());
+        }
+        batch = Arrays.asList(queries).subList(0, Math.min(CANDIDATES_PER_BATCH, queries.length));
+    }
+
+    private Map<String, String> eventMap(Random random, boolean blocking) {
+        Map<String, String> events = new HashMap<>();
+        events.put("producer", blocking && random.nextBoolean() ? "In Progress" : "Completed");
+        events.put("metadata", blocking && !events.get("producer").equals("In Progress") ? "Partially Processed" : "Completed");
+        for (int i = 2; i < eventMapSize; i++) {
+            events.put("event" + i, random.nextInt(4) == 0 ? "In Progress" : "Completed");
+        }
+        return events;
+    }
+
+    private ConfigGateBatch.GateCandidate nextQuery() {
+        return queries[next++ & (queries.length - 1)];
+    }
+
+    @Benchmark
+    public boolean scan() {
+        ConfigGateBatch.GateCandidate q = nextQuery();
+        return checker.canProcessCurrentConfig(stats, q.aitNo(), q.dbType(), q.configId());
+    }
+
+    @Benchmark
+    public boolean index() {
+        ConfigGateBatch.GateCandidate q = nextQuery();
+        return checker.canProcessCurrentConfig(q.aitNo(), q.dbType(), q.configId());
+    }
+
+    /** One cycle's worth of candidates; divide by CANDIDATES_PER_BATCH for the per-candidate cost. */
+    @Benchmark
+    @OperationsPerInvocation(CANDIDATES_PER_BATCH)
+    public void batch(Blackhole bh) {
+        bh.consume(checker.canProcessConfigs(batch, stats, false));
+    }
+
+    /** Toggles a producer status: re-encodes the event map and moves the row in the index. */
+    @Benchmark
+    public void statusUpdate() {
+        ConfigStatusChecker.Stats stat = stats.get(next++ % statsSize);
+        boolean blocking = ConfigStatusChecker.isBlockingStatus(stat.getEventMap().get("producer"));
+        checker.onStatusUpdate(stat, "producer", blocking ? "Completed" : "In Progress");
+    }
+}
@@ -0,0 +1,109 @@
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The placement pass of mapHostWithProcess: refresh the capacity model with a readHostStat result,
+ * then reserve a host for every pending job until headroom runs out. This is the loop body without
+ * the socket dispatch, which depends on the live scheduler and is measured through the
+ * scheduler_assignment_seconds metric instead.
+ *
+ * Hosts have 16-256 GB free and jobs cost 512 MB-4 GB, so with few hosts the batch runs out of
+ * headroom part way (jobs that fit nowhere are skipped until no host is eligible) and with many
+ * hosts every job is placed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn")
+public class HostAssignmentBenchmark {
+
+    private static final String[] PROCESSES = {"FUNNEL", "AIML", "IDW", "IEDPS"};
+
+    @Param({"8", "64", "512"})
+    int hostCount;
+
+    @Param({"100", "1000"})
+    int jobCount;
+
+    @Param({"LEAST_LOADED", "BEST_FIT", "SPREAD_GROUP"})
+    String policy;
+
+    private List<HostStat> readings;
+    private List<Stats> jobs;
+    private Map<String, HostCapacityModel.JobCost> costs;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        readings = new ArrayList<>(hostCount);
+        for (int i = 0; i < hostCount; i++) {
+            HostStat host = new HostStat();
+            host.setHost("host-" + i);
+            host.setFreeRam(16_384 + random.nextInt(245_760));
+            host.setFreeCpu(20 + random.nextInt(80));
+            readings.add(host);
+        }
+        costs = new HashMap<>();
+        for (String process : PROCESSES) {
+            costs.put(process, new HostCapacityModel.JobCost(512L << random.nextInt(4), 1 + random.nextInt(5), 1_024));
+        }
+        jobs = new ArrayList<>(jobCount);
+        for (int i = 0; i < jobCount; i++) {
+            Stats job = new Stats();
+            job.setProcess(PROCESSES[i % PROCESSES.length]);
+            job.setFunnelGroupId("group-" + (i % 16));
+            jobs.add(job);
+        }
+    }
+
+    /** A fresh model per invocation, as a new process type would get; includes the first refresh. */
+    @Benchmark
+    public int placeBatch(Blackhole bh) {
+        HostCapacityModel model = new HostCapacityModel(job -> costs.get(job.getProcess()),
+                HostStat::getFreeRam, HostStat::getFreeCpu, 30_000, HostPlacementPolicy.of(policy));
+        model.refresh(readings);
+        int placed = 0;
+        for (Stats job : jobs) {
+            HostStat host = model.reserve(job);
+            if (host == null) {
+                if (!model.hasEligibleHost()) {
+                    break;
+                }
+                continue;
+            }
+            bh.consume(host);
+            placed++;
+        }
+        return placed;
+    }
+
+    /** Steady state: a model already carrying reservations absorbs a heartbeat for every host. */
+    @State(Scope.Thread)
+    public static class LoadedModel {
+        HostCapacityModel model;
+
+        @Setup(Level.Iteration)
+        public void setUp(HostAssignmentBenchmark b) {
+            model = new HostCapacityModel(job -> b.costs.get(job.getProcess()),
+                    HostStat::getFreeRam, HostStat::getFreeCpu, Long.MAX_VALUE, HostPlacementPolicy.of(b.policy));
+            model.refresh(b.readings);
+            for (Stats job : b.jobs) {
+                if (model.reserve(job) == null && !model.hasEligibleHost()) {
+                    break;
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void heartbeats(LoadedModel state) {
+        for (HostStat host : readings) {
+            state.model.applyHeartbeat(host.getHost(), host.getFreeRam(), host.getFreeCpu());
+        }
+    }
+}
@@ -0,0 +1,180 @@
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AitMigrator against an in-memory H2 database in MSSQLServer mode.
+ *
+ * bind measures the compiled BindingPlan alone (both tables' setters on a real driver statement,
+ * nothing executed). migrate and migrateBulk run the whole delete + insert transaction; their
+ * "rows" secondary result is source rows per second. extraColumns widens the source layout with
+ * columns no mapping reads (as a wide SELECT * would), valueLength sets the string value size.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(2)
+public class MigrationBenchmark {
+
+    private static final String CFG_TABLE = "AIT_CONFIG";
+    private static final String DBP_TABLE = "AIT_DBPROP";
+    private static final int ROWS_PER_AIT = 4;
+
+    @Param({"1000", "10000"})
+    int rows;
+
+    @Param({"0", "32", "128"})
+    int extraColumns;
+
+    @Param({"8", "64"})
+    int valueLength;
+
+    private Connection connection;
+    private String[] sourceColumns;
+    private List<Object[]> sourceRows;
+    private PreparedStatement cfgInsert;
+    private PreparedStatement dbpInsert;
+    private AitMigrator.BindingPlan cfgPlan;
+    private AitMigrator.BindingPlan dbpPlan;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:migration;MODE=MSSQLServer;DB_CLOSE_DELAY=-1");
+        try (Statement st = connection.createStatement()) {
+            for (String table : List.of(CFG_TABLE, DBP_TABLE, CFG_TABLE + "_STAGE", DBP_TABLE + "_STAGE")) {
+                st.execute("DROP TABLE IF EXISTS " + table);
+            }
+            st.execute(createTable(CFG_TABLE, AitMigrator.cfgColumns()));
+            st.execute(createTable(DBP_TABLE, AitMigrator.dbpColumns()));
+            st.execute(createTable(CFG_TABLE + "_STAGE", AitMigrator.cfgColumns()));
+            st.execute(createTable(DBP_TABLE + "_STAGE", AitMigrator.dbpColumns()));
+            st.execute("CREATE INDEX IX_" + CFG_TABLE + "_AIT ON " + CFG_TABLE + " (AIT_NO)");
+            st.execute("CREATE INDEX IX_" + DBP_TABLE + "_AIT ON " + DBP_TABLE + " (AIT_NO)");
+        }
+
+        // Mapped source columns interleaved with unread ones, so positions are not simply 0..n
+        String[] mapped = AitMigrator.sourceColumns();
+        List<String> layout = new ArrayList<>();
+        for (int i = 0, extra = 0; i < mapped.length || extra < extraColumns; i++) {
+            if (extra < extraColumns) layout.add("EXTRA_" + extra++);
+            if (i < mapped.length) layout.add(mapped[i]);
+        }
+        sourceColumns = layout.toArray(String[]::new);
+
+        Map<String, AitMigrator.Kind> kinds = new HashMap<>();
+        for (AitMigrator.Col col : concat(AitMigrator.cfgColumns(), AitMigrator.dbpColumns())) {
+            if (col.source() != null) kinds.putIfAbsent(col.source(), col.kind());
+        }
+        Random random = new Random(42);
+        sourceRows = new ArrayList<>(rows);
+        for (int r = 0; r < rows; r++) {
+            Object[] row = new Object[sourceColumns.length];
+            for (int c = 0; c < row.length; c++) {
+                String name = sourceColumns[c];
+                if (name.equals("AIT_NO")) row[c] = r / ROWS_PER_AIT;
+                else if (name.equals("ID")) row[c] = r % ROWS_PER_AIT;
+                else row[c] = value(kinds.get(name), random);
+            }
+            sourceRows.add(row);
+        }
+
+        cfgPlan = AitMigrator.BindingPlan.compile(AitMigrator.cfgColumns(), sourceColumns, AitMigrator.columnTypes(connection, CFG_TABLE));
+        dbpPlan = AitMigrator.BindingPlan.compile(AitMigrator.dbpColumns(), sourceColumns, AitMigrator.columnTypes(connection, DBP_TABLE));
+        cfgInsert = connection.prepareStatement(insertSql(CFG_TABLE, AitMigrator.cfgColumns()));
+        dbpInsert = connection.prepareStatement(insertSql(DBP_TABLE, AitMigrator.dbpColumns()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        cfgInsert.close();
+        dbpInsert.close();
+        try (Statement st = connection.createStatement()) {
+            st.execute("DROP ALL OBJECTS");
+        }
+        connection.close();
+    }
+
+    /** Source rows processed, reported by JMH as a rows/s secondary result. */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class RowCounter {
+        public long rows;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            rows = 0;
+        }
+    }
+
+    @Benchmark
+    public void bind(RowCounter counter) throws SQLException {
+        for (Object[] row : sourceRows) {
+            cfgPlan.bind(cfgInsert, row);
+            dbpPlan.bind(dbpInsert, row);
+        }
+        counter.rows += rows;
+    }
+
+    /** Delete-then-insert by AIT in one transaction; every invocation rewrites the same AITs. */
+    @Benchmark
+    public void migrate(RowCounter counter) throws Exception {
+        AitMigrator.migrate(sourceColumns, sourceRows, connection, CFG_TABLE, DBP_TABLE);
+        counter.rows += rows;
+    }
+
+    @Benchmark
+    public void migrateBulk(RowCounter counter) throws Exception {
+        AitMigrator.migrateBulk(sourceColumns, sourceRows, connection, CFG_TABLE, DBP_TABLE,
+                CFG_TABLE + "_STAGE", DBP_TABLE + "_STAGE");
+        counter.rows += rows;
+    }
+
+    private Object value(AitMigrator.Kind kind, Random random) {
+        if (kind == null) return text(random); // EXTRA_* columns
+        return switch (kind) {
+            case INT -> random.nextInt(1_000);
+            case BOOL -> random.nextBoolean() ? "Y" : "N";
+            case TRIM -> " " + text(random) + " ";
+            default -> text(random);
+        };
+    }
+
+    private String text(Random random) {
+        char[] chars = new char[valueLength];
+        for (int i = 0; i < chars.length; i++) chars[i] = (char) ('a' + random.nextInt(26));
+        return new String(chars);
+    }
+
+    private static String createTable(String table, List<AitMigrator.Col> cols) {
+        StringJoiner ddl = new StringJoiner(", ", "CREATE TABLE " + table + " (", ", LAST_UPDATED DATETIME2)");
+        for (AitMigrator.Col col : cols) {
+            String type = switch (col.kind()) {
+                case INT -> "INT";
+                case BOOL -> "BIT";
+                default -> "VARCHAR(255)";
+            };
+            ddl.add(col.dest() + " " + type);
+        }
+        return ddl.toString();
+    }
+
+    private static String insertSql(String table, List<AitMigrator.Col> cols) {
+        StringJoiner names = new StringJoiner(",");
+        StringJoiner marks = new StringJoiner(",");
+        for (AitMigrator.Col col : cols) {
+            names.add(col.dest());
+            marks.add("?");
+        }
+        return "INSERT INTO " + table + " (" + names + ") VALUES (" + marks + ")";
+    }
+
+    private static List<AitMigrator.Col> concat(List<AitMigrator.Col> a, List<AitMigrator.Col> b) {
+        List<AitMigrator.Col> all = new ArrayList<>(a);
+        all.addAll(b);
+        return all;
+    }
+}
@@ -1,38 +1,210 @@
+// Parsed parameters, compiled schema validator and statement per step; rebuilt only when the step's parameters change
+private final StepPlanCache stepPlanCache = new StepPlanCache(step -> tcMasterServiceHelper.getParametersSchema(step));
+
+// Write-behind TC_Execution log: ids from a local sequence block, transitions flushed in JDBC batches.
+// Every TC_Execution row goes through it (introduceDelay included), so TC_EXECUTION_SEQ is the only id source
+private ExecutionLogWriter executionLog;
+// Whole-result validation for steps that carry expectedDigest / referenceQuery
+private ResultDigestValidator resultDigestValidator;
+// Pushes committed TC_Execution transitions to open dashboards (SSE)
+@Autowired
+private ExecutionEventHub executionEventHub;
+// Runs whole test cases as a step graph: see runTestCases
+private TestCaseDagExecutor testCaseExecutor;
+// stepName -> data source it loads and the method that runs it; introduceDelay is a timer, not a handler
+private final Map<String, StepHandler> stepHandlers = new ConcurrentHashMap<>();
+
+private record StepHandler(String dataSource, BiConsumer<TcMaster, TcSteps> run) {}
+
+private static final Duration DEFAULT_STEP_TIMEOUT = Duration.ofMinutes(10);
+// Steps without a registered handler share this concurrency lane of one: they run as they always did, one at a time
+private static final String SEQUENTIAL = "SEQUENTIAL";
+
+@PostConstruct
+void startExecutionLog() {
+    DataSource dataSource = jdbcTemplate.getDataSource();
+    executionLog = new ExecutionLogWriter(dataSource,
+            ExecutionLogWriter.sqlServerSequence(dataSource, "TC_EXECUTION_SEQ"), ExecutionLogWriter.Options.defaults());
+    executionLog.addListener(executionEventHub::publish);
+    resultDigestValidator = new ResultDigestValidator(dataSource, 5_000, 10);
+    testCaseExecutor = new TestCaseDagExecutor(16, Map.of("SQLSERVER", 4, SEQUENTIAL, 1), 2);
+    registerStepHandler("executeAndValidateQuery", "SQLSERVER", this::executeAndValidateQuery);
+}
+
+/** Lets a step type run in parallel with others, within its data source's concurrency limit. */
+public void registerStepHandler(String stepName, String dataSource, BiConsumer<TcMaster, TcSteps> run) {
+    stepHandlers.put(stepName, new StepHandler(dataSource, run));
+}
+
+@PreDestroy
+void stopExecutionLog() {
+    testCaseExecutor.close();
+    executionLog.close(); // drains and commits whatever is still queued
+}
+
+/**
+ * Runs the active steps of the given test cases as one dependency graph and waits for the report.
+ *
+ * Within a test case a step depends on every step with the previous sequence number, so steps that
+ * share a sequence number run side by side. A step whose parameters carry "dependsOn": [sequenceNo, ...]
+ * depends on those sequence numbers instead. Test cases do not depend on each other. Optional
+ * "timeoutSeconds" overrides the default step timeout; introduceDelay steps become timers.
+ * Both keys are checked by StepPlanCache, not by the step's own schema.
+ *
+ * Step types with a registered handler run concurrently. Every other step type goes to
+ * otherSteps (the existing per-step runner), one at a time across the whole run.
+ */
+public TestCaseDagExecutor.RunReport runTestCases(Map<TcMaster, List<TcSteps>> stepsByCase, boolean failFast,
+                                                  BiConsumer<TcMaster, TcSteps> otherSteps)
+        throws InterruptedException, ExecutionException {
+    TestCaseDagExecutor.Plan plan = testCaseExecutor.plan();
+    Map<String, Long> delayLogIds = new ConcurrentHashMap<>();
+    Map<String, Runnable> delayStarts = new HashMap<>();
+    stepsByCase.forEach((tcMaster, steps) -> addTestCase(plan, tcMaster, steps, otherSteps, delayStarts, delayLogIds));
+
+    // Delays run no work of their own, so their TC_Execution rows are written from the executor's callbacks
+    plan.listener(new TestCaseDagExecutor.Listener() {
+        @Override
+        public void started(String id) {
+            Runnable begin = delayStarts.get(id);
+            if (begin != null) begin.run();
+        }
+
+        @Override
+        public void finished(TestCaseDagExecutor.StepResult result) {
+            Long tcExecId = delayLogIds.remove(result.id());
+            if (tcExecId == null) return;
+            if (result.status() == TestCaseDagExecutor.Status.PASSED) {
+                executionLog.update(tcExecId, Constants.COMPLETED, "Delay passed");
+            } else {
+                executionLog.update(tcExecId, Constants.FAILED, "Delay " + result.status());
+            }
+        }
+    });
+    TestCaseDagExecutor.RunReport report = plan.run(failFast).get();
+    log.info("Ran {} steps of {} test cases in {} ms, succeeded: {}",
+            report.results().size(), stepsByCase.size(), report.elapsedMillis(), report.succeeded());
+    return report;
+}
+
+private void addTestCase(TestCaseDagExecutor.Plan plan, TcMaster tcMaster, List<TcSteps> steps,
+                         BiConsumer<TcMaster, TcSteps> otherSteps,
+                         Map<String, Runnable> delayStarts, Map<String, Long> delayLogIds) {
+    TreeMap<Integer, List<String>> idsBySequence = new TreeMap<>();
+    for (TcSteps step : steps) {
+        if ("Active".equals(step.getStatus())) {
+            idsBySequence.computeIfAbsent(step.getSequenceNo(), k -> new ArrayList<>()).add(stepNodeId(tcMaster, step));
+        }
+    }
+    for (TcSteps step : steps) {
+        if (!"Active".equals(step.getStatus())) continue;
+        String id = stepNodeId(tcMaster, step);
+        StepPlanCache.StepPlan stepPlan = stepPlanCache.planFor(step);
+        String[] dependsOn = dependsOn(tcMaster, step, stepPlan, idsBySequence);
+
+        if ("introduceDelay".equals(step.getStepName())) {
+            if (stepPlan.valid()) {
+                plan.delay(id, Duration.ofSeconds(stepPlan.parameters().get("delayInSeconds").asLong()), dependsOn);
+                delayStarts.put(id, () -> delayLogIds.put(id,
+                        executionLog.begin(tcMaster.getTcId(), step.getStepId(), Constants.INPROGRESS)));
+            } else {
+                plan.step(id, null, null, () -> {
+                    long tcExecId = executionLog.begin(tcMaster.getTcId(), step.getStepId(), Constants.INPROGRESS);
+                    executionLog.update(tcExecId, Constants.FAILED, "Schema validation failed");
+                    throw new RuntimeException("Schema validation failed");
+                }, dependsOn);
+            }
+            continue;
+        }
+        StepHandler handler = stepHandlers.getOrDefault(step.getStepName(), new StepHandler(SEQUENTIAL, otherSteps));
+        Duration timeout = stepPlan.parameters() != null && stepPlan.parameters().hasNonNull("timeoutSeconds")
+                ? Duration.ofSeconds(stepPlan.parameters().get("timeoutSeconds").asLong()) : DEFAULT_STEP_TIMEOUT;
+        plan.step(id, handler.dataSource(), timeout, () -> handler.run().accept(tcMaster, step), dependsOn);
+    }
+}
+
+private String[] dependsOn(TcMaster tcMaster, TcSteps step, StepPlanCache.StepPlan stepPlan,
+                           NavigableMap<Integer, List<String>> idsBySequence) {
+    JsonNode declared = stepPlan.parameters() == null ? null : stepPlan.parameters().get("dependsOn");
+    if (declared == null || !declared.isArray()) {
+        Map.Entry<Integer, List<String>> previous = idsBySequence.lowerEntry(step.getSequenceNo());
+        return previous == null ? new String[0] : previous.getValue().toArray(String[]::new);
+    }
+    List<String> ids = new ArrayList<>();
+    for (JsonNode sequenceNo : declared) {
+        List<String> atSequence = idsBySequence.get(sequenceNo.asInt());
+        if (atSequence == null) {
+            throw new IllegalArgumentException(stepNodeId(tcMaster, step) + " depends on unknown sequence number " + sequenceNo);
+        }
+        ids.addAll(atSequence);
+    }
+    return ids.toArray(String[]::new);
+}
+
+private static String stepNodeId(TcMaster tcMaster, TcSteps step) {
+    return tcMaster.getTcId() + "#" + step.getStepId();
+}
+
 public void executeAndValidateQuery(TcMaster tcMaster, TcSteps tcStep) {
     log.info("{}#{} updating TC_Execution log to In Progress", tcMaster.getTcId(), tcStep.getStepId());
-    long tcExecId = tcMasterServiceHelper.insertLogEntry(tcMaster.getTcId(), tcStep.getStepId(), Constants.INPROGRESS);
+    long tcExecId = executionLog.begin(tcMaster.getTcId(), tcStep.getStepId(), Constants.INPROGRESS);
     log.info("{}#{} executing and validating query", tcMaster.getTcId(), tcStep.getStepId());
 
     try {
-        if (tcMasterServiceHelper.getAndValidateParametersSchema(tcStep)) {
-            ObjectMapper objectMapper = new ObjectMapper();
-            JsonNode params = objectMapper.readTree(tcStep.getParameters());
-
-            String query = params.get("query").asText();
-            String expectedOutput = params.get("expectedOutput").asText();
+        StepPlanCache.StepPlan plan = stepPlanCache.planFor(tcStep);
+        if (plan.valid()) {
+            if (plan.parameters().hasNonNull("expectedDigest") || plan.parameters().hasNonNull("referenceQuery")) {
+                validateResultDigest(tcMaster, tcStep, tcExecId, plan);
+                return;
+            }
+            String expectedOutput = plan.expectedOutput();
 
-            String actualOutput = jdbcTemplate.queryForObject(query, String.class);
+            // Same single-row/single-column contract as queryForObject, but through a PreparedStatement
+            String actualOutput = DataAccessUtils.requiredSingleResult(
+                    jdbcTemplate.query(plan.statement(), new SingleColumnRowMapper<>(String.class)));
 
             boolean isValid = expectedOutput.equals(actualOutput);
 
             if (isValid) {
                 log.info("{}#{} validation successful", tcMaster.getTcId(), tcStep.getStepId());
-                tcMasterServiceHelper.updateLogEntry(tcExecId, Constants.COMPLETED, "Validation passed");
+                executionLog.update(tcExecId, Constants.COMPLETED, "Validation passed");
             } else {
                 log.info("{}#{} validation failed: Expected={}, Actual={}", 
                          tcMaster.getTcId(), tcStep.getStepId(), expectedOutput, actualOutput);
-                tcMasterServiceHelper.updateLogEntry(tcExecId, Constants.FAILED,
+                executionLog.update(tcExecId, Constants.FAILED,
                         String.format("Validation failed. Expected: %s, Actual: %s", expectedOutput, actualOutput));
             }
 
         } else {
-            log.info("{}#{} updating TC_Execution log to Failed", tcMaster.getTcId(), tcStep.getStepId());
-            tcMasterServiceHelper.updateLogEntry(tcExecId, Constants.FAILED, "Schema validation failed");
+            log.info("{}#{} updating TC_Execution log to Failed: {}", tcMaster.getTcId(), tcStep.getStepId(), plan.schemaErrors());
+            executionLog.update(tcExecId, Constants.FAILED, "Schema validation failed");
             throw new RuntimeException("Schema validation failed");
         }
     } catch (Exception e) {
         log.info("{}#{} updating TC_Execution log to Failed", tcMaster.getTcId(), tcStep.getStepId());
-        tcMasterServiceHelper.updateLogEntry(tcExecId, Constants.FAILED, "Error: " + e.getMessage());
+        executionLog.update(tcExecId, Constants.FAILED, "Error: " + e.getMessage());
         throw new RuntimeException("Error executing and validating query: " + e.getMessage(), e);
     }
 }
+
+// Streams the step query into a digest + row count (constant memory) and compares it with
+// expectedDigest ("rows:hex") or with the same digest of referenceQuery; "unordered": true ignores row order.
+private void validateResultDigest(TcMaster tcMaster, TcSteps tcStep, long tcExecId, StepPlanCache.StepPlan plan) throws SQLException {
+    JsonNode params = plan.parameters();
+    ResultDigestValidator.Order order = params.path("unordered").asBoolean(false)
+            ? ResultDigestValidator.Order.UNORDERED : ResultDigestValidator.Order.ORDERED;
+    ResultDigestValidator.Result result = params.hasNonNull("referenceQuery")
+            ? resultDigestValidator.validate(plan.query(), params.get("referenceQuery").asText(), order)
+            : resultDigestValidator.validate(plan.query(), ResultDigestValidator.Digest.parse(params.get("expectedDigest").asText()), order);
+
+    if (result.matched()) {
+        log.info("{}#{} digest validation successful: {}", tcMaster.getTcId(), tcStep.getStepId(), result.actual());
+        executionLog.update(tcExecId, Constants.COMPLETED, "Digest validation passed: " + result.actual());
+    } else {
+        log.info("{}#{} digest validation failed: Expected={}, Actual={}",
+                 tcMaster.getTcId(), tcStep.getStepId(), result.expected(), result.actual());
+        executionLog.update(tcExecId, Constants.FAILED,
+                String.format("Digest validation failed. Expected: %s, Actual: %s%s", result.expected(), result.actual(),
+                        result.mismatches().isEmpty() ? "" : ". First mismatches: " + String.join("; ", result.mismatches())));
+    }
+}
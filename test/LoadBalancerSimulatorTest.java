@@ -0,0 +1,71 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Small fixed-seed scenarios for {@link LoadBalancerSimulator}; each run is fully deterministic, so
+ * the assertions compare exact reports.
+ */
+class LoadBalancerSimulatorTest {
+
+    private static final int HOSTS = 8;
+    private static final int JOBS = 200;
+    private static final long SEED = 42;
+
+    private final AtomicInteger aimlJobs = new AtomicInteger();
+
+    private final LoadBalancerSimulator.Fixtures fixtures = new LoadBalancerSimulator.Fixtures() {
+        @Override
+        public HostStat hostStat(String host, long freeRamMb, double freeCpuPercent) {
+            HostStat hostStat = new HostStat();
+            hostStat.setHost(host);
+            hostStat.setFreeRam(freeRamMb);
+            hostStat.setFreeCpu(freeCpuPercent);
+            return hostStat;
+        }
+
+        @Override
+        public Stats job(String process) {
+            if (process.equals("AIML")) {
+                aimlJobs.incrementAndGet();
+            }
+            Stats stats = new Stats();
+            stats.setProcess(process);
+            return stats;
+        }
+    };
+
+    @Test
+    void sameSeedGivesSameReports() {
+        LoadBalancerSimulator.Config config = LoadBalancerSimulator.Config.defaults(HOSTS, JOBS, SEED);
+
+        List<LoadBalancerSimulator.Report> first = LoadBalancerSimulator.runAll(fixtures, config);
+        List<LoadBalancerSimulator.Report> second = LoadBalancerSimulator.runAll(fixtures, config);
+
+        assertEquals(first, second);
+        assertEquals(LoadBalancerSimulator.Strategy.values().length, first.size());
+        for (LoadBalancerSimulator.Report report : first) {
+            assertEquals(JOBS, report.completed(), report.strategy() + " left jobs unfinished");
+        }
+    }
+
+    @Test
+    void capacityStrategiesSkipJobsThatFitNoHost() {
+        // 4 GB hosts never have the 6 GB free an AIML job needs (4 GB job + 2 GB threshold); every other tool fits
+        LoadBalancerSimulator.Config defaults = LoadBalancerSimulator.Config.defaults(HOSTS, JOBS, SEED);
+        LoadBalancerSimulator.Config config = new LoadBalancerSimulator.Config(HOSTS, JOBS, SEED, 4 * 1024,
+                defaults.readHostStatMillis(), defaults.sendMillis(), defaults.loadLagMillis(), defaults.reanalyzeMillis(),
+                defaults.refreshMillis(), defaults.settleMillis(), 24L * 3600 * 1000);
+
+        for (LoadBalancerSimulator.Strategy strategy : List.of(LoadBalancerSimulator.Strategy.CAPACITY_LEAST_LOADED,
+                LoadBalancerSimulator.Strategy.CAPACITY_BEST_FIT, LoadBalancerSimulator.Strategy.CAPACITY_SPREAD_GROUP)) {
+            aimlJobs.set(0);
+            LoadBalancerSimulator.Report report = LoadBalancerSimulator.run(fixtures, config, strategy);
+
+            assertTrue(aimlJobs.get() > 0, "seed produced no AIML job");
+            assertEquals(JOBS - aimlJobs.get(), report.completed(), strategy + " stopped behind an AIML job");
+        }
+    }
+}